@@ -0,0 +1,110 @@
+package frc.robot.pathfind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import frc.robot.Constants;
+
+/**
+ * Obstacle layouts shared by the benchmarks.
+ *
+ * "field" is the real 2023 field from {@link Constants.FieldConstants#obstacles}, anything else is
+ * the number of obstacles for a synthetic field. Synthetic obstacles are randomly rotated and
+ * stretched quads, one per cell of a grid over a 16.5 x 8 m field, so they never overlap.
+ * The seed is fixed so every run benchmarks the same layout.
+ */
+final class BenchmarkFields {
+    static final double FIELD_LENGTH = 16.5;
+    static final double FIELD_WIDTH = 8.0;
+
+    private BenchmarkFields() {
+    }
+
+    static List<Obstacle> obstacles(String layout) {
+        if (layout.equals("field")) {
+            return Constants.FieldConstants.obstacles;
+        }
+        return synthetic(Integer.parseInt(layout), 5712);
+    }
+
+    /**
+     * Clearance to offset the layout's obstacles by. The robot's 0.5m on the real field, smaller on
+     * crowded synthetic fields so the offset obstacles still don't touch.
+     */
+    static double offsetDistance(String layout) {
+        if (layout.equals("field")) {
+            return 0.5;
+        }
+        return Math.min(0.5, 0.15 * cellSize(Integer.parseInt(layout)));
+    }
+
+    static List<Obstacle> synthetic(int count, long seed) {
+        Random random = new Random(seed);
+        int columns = columns(count);
+        double cellLength = FIELD_LENGTH / (columns + 1);
+        double cellWidth = FIELD_WIDTH / (rows(count) + 1);
+        // Leave room around each obstacle so there's space to drive between them
+        double maxRadius = 0.3 * cellSize(count);
+
+        List<Obstacle> obstacles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double centerX = cellLength * (i % columns + 1);
+            double centerY = cellWidth * (i / columns + 1);
+            double angle = random.nextDouble() * Math.PI;
+            double halfLength = maxRadius * (0.4 + 0.6 * random.nextDouble());
+            double halfWidth = maxRadius * (0.2 + 0.5 * random.nextDouble());
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            double[] xs = new double[4];
+            double[] ys = new double[4];
+            // Clockwise, like the field obstacles
+            double[][] corners = {{-1, -1}, {-1, 1}, {1, 1}, {1, -1}};
+            for (int c = 0; c < 4; c++) {
+                double localX = corners[c][0] * halfLength;
+                double localY = corners[c][1] * halfWidth;
+                xs[c] = centerX + localX * cos - localY * sin;
+                ys[c] = centerY + localX * sin + localY * cos;
+            }
+            obstacles.add(new Obstacle(xs, ys));
+        }
+        return obstacles;
+    }
+
+    // Enough columns and rows for the obstacles, about as many as the field's aspect ratio fits
+    private static int columns(int count) {
+        return (int) Math.ceil(Math.sqrt(count * FIELD_LENGTH / FIELD_WIDTH));
+    }
+
+    private static int rows(int count) {
+        return (int) Math.ceil((double) count / columns(count));
+    }
+
+    private static double cellSize(int count) {
+        return Math.min(FIELD_LENGTH / (columns(count) + 1), FIELD_WIDTH / (rows(count) + 1));
+    }
+
+    // Start points along the driver station wall, where the robot would be planning from
+    static List<Node> starts(int count, long seed) {
+        Random random = new Random(seed);
+        List<Node> starts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            starts.add(new Node(0.05 + random.nextDouble() * 0.25, 0.3 + random.nextDouble() * (FIELD_WIDTH - 0.6)));
+        }
+        return starts;
+    }
+
+    // Goal on the far side of the field
+    static Node goal() {
+        return new Node(FIELD_LENGTH - 0.2, FIELD_WIDTH / 2);
+    }
+
+    // Goals spread along the far wall, like a row of scoring positions
+    static List<Node> goals(int count) {
+        List<Node> goals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            goals.add(new Node(FIELD_LENGTH - 0.2, FIELD_WIDTH * (i + 0.5) / count));
+        }
+        return goals;
+    }
+}
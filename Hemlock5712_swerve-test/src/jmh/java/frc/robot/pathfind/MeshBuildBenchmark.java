@@ -0,0 +1,50 @@
+package frc.robot.pathfind;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Building the whole navigation mesh from a list of obstacles, what the robot does at startup.
+ *
+ * Offsetting is remembered per obstacle after the first build, so after warmup this times adding
+ * the nodes and the visibility checks. {@link ObstacleInflationBenchmark} times the offsetting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MeshBuildBenchmark {
+    @Param({"field", "5", "20", "50", "100", "200"})
+    public String layout;
+
+    private List<Obstacle> obstacles;
+    private double offsetDistance;
+
+    @Setup
+    public void setUp() {
+        obstacles = BenchmarkFields.obstacles(layout);
+        offsetDistance = BenchmarkFields.offsetDistance(layout);
+    }
+
+    @Benchmark
+    public VisGraph allVisibleEdges() {
+        Pathfinder pathfinder = new Pathfinder(offsetDistance, obstacles);
+        pathfinder.generateNodeEdges();
+        return pathfinder.navMesh;
+    }
+
+    @Benchmark
+    public VisGraph bitangentEdges() {
+        Pathfinder pathfinder = new Pathfinder(offsetDistance, obstacles);
+        pathfinder.generateBitangentNodeEdges();
+        return pathfinder.navMesh;
+    }
+}
@@ -0,0 +1,81 @@
+package frc.robot.pathfind;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Offsetting one obstacle, and the {@link PolygonDouble} work that comes with it.
+ *
+ * Obstacles are star shaped, so about half their corners are concave. inflate makes a new obstacle
+ * every call so nothing is remembered, inflateRemembered offsets the same one again like a second
+ * mesh build would, and contains times point in polygon tests against the offset polygon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObstacleInflationBenchmark {
+    private static final int POINT_COUNT = 64;
+
+    @Param({"4", "8", "16", "64"})
+    public int corners;
+
+    @Param({"0.25", "0.5"})
+    public double distance;
+
+    private double[] xs;
+    private double[] ys;
+    private Obstacle obstacle;
+    private PolygonDouble inflated;
+    private double[] pointXs;
+    private double[] pointYs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5712);
+        xs = new double[corners];
+        ys = new double[corners];
+        for (int i = 0; i < corners; i++) {
+            // Clockwise, alternating between an outer and inner radius
+            double angle = -2 * Math.PI * i / corners;
+            double radius = (i % 2 == 0 ? 1.0 : 0.6) + 0.2 * random.nextDouble();
+            xs[i] = 4 + radius * Math.cos(angle);
+            ys[i] = 4 + radius * Math.sin(angle);
+        }
+        obstacle = new Obstacle(xs, ys);
+        inflated = obstacle.offset(distance).polygon;
+
+        pointXs = new double[POINT_COUNT];
+        pointYs = new double[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            pointXs[i] = 2 + 4 * random.nextDouble();
+            pointYs[i] = 2 + 4 * random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public Obstacle inflate() {
+        return new Obstacle(xs, ys).offset(distance);
+    }
+
+    @Benchmark
+    public Obstacle inflateRemembered() {
+        return obstacle.offset(distance);
+    }
+
+    @Benchmark
+    public void contains(Blackhole blackhole) {
+        for (int i = 0; i < POINT_COUNT; i++) {
+            blackhole.consume(inflated.contains(pointXs[i], pointYs[i]));
+        }
+    }
+}
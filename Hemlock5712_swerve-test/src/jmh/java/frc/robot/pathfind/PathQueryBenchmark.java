@@ -0,0 +1,162 @@
+package frc.robot.pathfind;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Planning from a start point that isn't part of the mesh, which is every query the robot makes.
+ *
+ * singleQuery connects the start and runs A*, like the first trip to a goal. repeatedQuery goes to
+ * a goal whose paths were precomputed, like a preset scoring position. connectStart is only the
+ * part both of them share, checking which nodes the start point can see. nearestGoal picks the
+ * closest of several goals with one search, nearestGoalOneByOne does it with a search per goal.
+ * meshQuery and meshQueryUnindexed plan between nodes already in the mesh, with the indexed A*
+ * and the old HashMap based one, so the two searches can be compared on their own.
+ * Each call plans from the next of a fixed set of start points along the driver station wall.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PathQueryBenchmark {
+    private static final int START_COUNT = 64;
+    private static final int GOAL_COUNT = 9;
+
+    @Param({"field", "5", "20", "50", "100", "200"})
+    public String layout;
+
+    @Param({"all", "bitangent"})
+    public String edges;
+
+    private Pathfinder searchPathfinder;
+    private Pathfinder precomputedPathfinder;
+    private Pathfinder goalsPathfinder;
+    private Pathfinder meshPathfinder;
+    private ObstacleIndex startIndex;
+    private Node searchGoal;
+    private Node precomputedGoal;
+    private List<Node> goals;
+    private List<Node> starts;
+    private Node meshGoal;
+    private List<Node> meshStarts;
+    private int nextStart;
+
+    @Setup
+    public void setUp() {
+        searchPathfinder = build();
+        searchGoal = BenchmarkFields.goal();
+        searchPathfinder.addNode(searchGoal);
+
+        precomputedPathfinder = build();
+        precomputedGoal = BenchmarkFields.goal();
+        precomputedPathfinder.addGoal(precomputedGoal);
+
+        goalsPathfinder = build();
+        goals = BenchmarkFields.goals(GOAL_COUNT);
+        goals.forEach(goalsPathfinder::addNode);
+
+        startIndex = searchPathfinder.offsetIndex != null
+            ? searchPathfinder.offsetIndex
+            : new ObstacleIndex(searchPathfinder.obstacles);
+        starts = BenchmarkFields.starts(START_COUNT, 254);
+
+        // Same starts, but as mesh nodes so both searches can use them
+        meshPathfinder = new Pathfinder(BenchmarkFields.offsetDistance(layout), BenchmarkFields.obstacles(layout));
+        meshGoal = BenchmarkFields.goal();
+        meshPathfinder.addNode(meshGoal);
+        meshStarts = BenchmarkFields.starts(START_COUNT, 254);
+        meshStarts.forEach(meshPathfinder::addNode);
+        generateEdges(meshPathfinder);
+    }
+
+    private Pathfinder build() {
+        Pathfinder pathfinder = new Pathfinder(BenchmarkFields.offsetDistance(layout), BenchmarkFields.obstacles(layout));
+        generateEdges(pathfinder);
+        return pathfinder;
+    }
+
+    private void generateEdges(Pathfinder pathfinder) {
+        if (edges.equals("bitangent")) {
+            pathfinder.generateBitangentNodeEdges();
+        } else {
+            pathfinder.generateNodeEdges();
+        }
+    }
+
+    private Node nextStart() {
+        nextStart = (nextStart + 1) % START_COUNT;
+        return starts.get(nextStart);
+    }
+
+    private Node nextMeshStart() {
+        nextStart = (nextStart + 1) % START_COUNT;
+        return meshStarts.get(nextStart);
+    }
+
+    @Benchmark
+    public List<Node> singleQuery() {
+        return searchPathfinder.findPath(nextStart(), searchGoal);
+    }
+
+    @Benchmark
+    public List<Node> repeatedQuery() {
+        return precomputedPathfinder.findPath(nextStart(), precomputedGoal);
+    }
+
+    @Benchmark
+    public List<Node> meshQuery() {
+        return meshPathfinder.navMesh.findPath(nextMeshStart(), meshGoal);
+    }
+
+    @Benchmark
+    public List<Node> meshQueryUnindexed() {
+        return meshPathfinder.navMesh.findPathUnindexed(nextMeshStart(), meshGoal);
+    }
+
+    @Benchmark
+    public int connectStart() {
+        VisGraph navMesh = searchPathfinder.navMesh;
+        int nodeMark = navMesh.getNodeSize();
+        int edgeMark = navMesh.getEdgeSize();
+        navMesh.attachNode(nextStart(), startIndex);
+        int connected = navMesh.getEdgeSize() - edgeMark;
+        navMesh.detachTo(nodeMark, edgeMark);
+        return connected;
+    }
+
+    @Benchmark
+    public GoalPath nearestGoal() {
+        return goalsPathfinder.findPathToNearest(nextStart(), goals);
+    }
+
+    @Benchmark
+    public List<Node> nearestGoalOneByOne() {
+        Node start = nextStart();
+        List<Node> best = null;
+        double bestLength = Double.POSITIVE_INFINITY;
+        for (Node goal : goals) {
+            List<Node> path = goalsPathfinder.findPath(start, goal);
+            if (path != null && length(path) < bestLength) {
+                best = path;
+                bestLength = length(path);
+            }
+        }
+        return best;
+    }
+
+    private static double length(List<Node> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += Math.hypot(path.get(i).x - path.get(i - 1).x, path.get(i).y - path.get(i - 1).y);
+        }
+        return length;
+    }
+}
@@ -473,31 +473,39 @@ public final class Constants {
     //   2, new Pose3d(0.0, 3.97, 0.0, new Rotation3d(0, 0, degreesToRadians(0.0))));
 
 
-    public static List<Obstacle> obstacles = List.of(
-            // Blue Charging Station
-            new Obstacle(new double[] {
-                    FieldConstants.Community.chargingStationCorners[0].getX(),
-                    FieldConstants.Community.chargingStationCorners[1].getX(),
-                    FieldConstants.Community.chargingStationCorners[3].getX(),
-                    FieldConstants.Community.chargingStationCorners[2].getX(),
-            }, new double[] {
-                    FieldConstants.Community.chargingStationCorners[0].getY(),
-                    FieldConstants.Community.chargingStationCorners[1].getY(),
-                    FieldConstants.Community.chargingStationCorners[3].getY(),
-                    FieldConstants.Community.chargingStationCorners[2].getY()
-            }),
-            // Red Charging Station
-            new Obstacle(new double[] {
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[2]).getX(),
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[3]).getX(),
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[1]).getX(),
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[0]).getX(),
-            }, new double[] {
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[2]).getY(),
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[3]).getY(),
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[1]).getY(),
-                    allianceFlip(FieldConstants.Community.chargingStationCorners[0]).getY()
-            }));
+    public static List<Obstacle> obstacles = obstaclesFor(DriverStation.getAlliance());
+
+    /**
+     * The field obstacles as they are for the alliance passed in, so both sides can be built
+     * without a Driver Station. {@link #obstacles} is this for the alliance at startup.
+     */
+    public static List<Obstacle> obstaclesFor(Alliance alliance) {
+        return List.of(
+                // Blue Charging Station
+                new Obstacle(new double[] {
+                        FieldConstants.Community.chargingStationCorners[0].getX(),
+                        FieldConstants.Community.chargingStationCorners[1].getX(),
+                        FieldConstants.Community.chargingStationCorners[3].getX(),
+                        FieldConstants.Community.chargingStationCorners[2].getX(),
+                }, new double[] {
+                        FieldConstants.Community.chargingStationCorners[0].getY(),
+                        FieldConstants.Community.chargingStationCorners[1].getY(),
+                        FieldConstants.Community.chargingStationCorners[3].getY(),
+                        FieldConstants.Community.chargingStationCorners[2].getY()
+                }),
+                // Red Charging Station
+                new Obstacle(new double[] {
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[2]).getX(),
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[3]).getX(),
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[1]).getX(),
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[0]).getX(),
+                }, new double[] {
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[2]).getY(),
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[3]).getY(),
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[1]).getY(),
+                        allianceFlip(alliance, FieldConstants.Community.chargingStationCorners[0]).getY()
+                }));
+    }
 
     /**
      * Flips a translation to the correct side of the field based on the current
@@ -507,7 +515,14 @@ public final class Constants {
      * rightmost point on the BLUE ALLIANCE wall.
      */
     public static Translation2d allianceFlip(Translation2d translation) {
-        if (DriverStation.getAlliance() == Alliance.Red) {
+        return allianceFlip(DriverStation.getAlliance(), translation);
+    }
+
+    /**
+     * Flips a translation to the given alliance's side of the field.
+     */
+    public static Translation2d allianceFlip(Alliance alliance, Translation2d translation) {
+        if (alliance == Alliance.Red) {
             return new Translation2d(fieldLength - translation.getX(), translation.getY());
         } else {
             return translation;
@@ -0,0 +1,103 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.pathfind.NavMeshFile;
+import frc.robot.pathfind.Node;
+import frc.robot.pathfind.Obstacle;
+import frc.robot.pathfind.Pathfinder;
+import frc.robot.pathfind.VisGraph;
+
+/**
+ * The A* map of the field, built offline by the buildNavMesh Gradle task and read from the deploy
+ * directory at startup.
+ *
+ * The field obstacles depend on the alliance, so there's a file for each. At startup whichever one
+ * was built from the same obstacles as {@link Constants.FieldConstants#obstacles} gets used.
+ * The preset positions are the first nodes of the map, in the order of {@link #presets()}, so they
+ * can be found again after loading. If no file matches the map gets built on the spot like it used to be.
+ */
+public final class FieldNavMesh {
+    private static final Alliance[] ALLIANCES = {Alliance.Blue, Alliance.Red};
+    /** Clearance to keep from the obstacles, the map's nodes are the corners of the offset obstacles */
+    public static final double OBSTACLE_OFFSET = 0.5;
+
+    private FieldNavMesh() {
+    }
+
+    /**
+     * Positions the robot drives to, added to the map first so they keep their indices.
+     */
+    public static List<Node> presets() {
+        return List.of(new Node(4, 4, Rotation2d.fromDegrees(180)));
+    }
+
+    /**
+     * Where the map file for an alliance lives, relative to the deploy directory.
+     */
+    public static String file(Alliance alliance) {
+        return "pathfind/navmesh-" + alliance.name().toLowerCase() + ".bin";
+    }
+
+    /**
+     * Loads the prebuilt file that matches the current obstacles if there is one, otherwise builds the map.
+     */
+    public static VisGraph loadOrBuild() {
+        List<Obstacle> obstacles = Constants.FieldConstants.obstacles;
+        List<Node> presets = presets();
+        long fingerprint = NavMeshFile.fingerprint(obstacles, OBSTACLE_OFFSET, presets);
+        StringBuilder errors = new StringBuilder();
+        for (Alliance alliance : ALLIANCES) {
+            Path file = Filesystem.getDeployDirectory().toPath().resolve(file(alliance));
+            try {
+                return NavMeshFile.load(file, fingerprint);
+            } catch (IOException e) {
+                errors.append(errors.length() == 0 ? " " : "; ").append(e.getMessage());
+            }
+        }
+        DriverStation.reportWarning("Building A* map at startup, no prebuilt map matches:" + errors, false);
+        return build(obstacles, presets);
+    }
+
+    /**
+     * Builds the map: the presets, then the corners of the offset obstacles, with an edge between
+     * every pair that can see each other past the obstacles. The offsetting and visibility checks
+     * are spread over the common pool, the result is the same as building it on one thread.
+     */
+    public static VisGraph build(List<Obstacle> obstacles, List<Node> presets) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Pathfinder pathfinder = new Pathfinder(OBSTACLE_OFFSET);
+        VisGraph navMesh = pathfinder.getNavMesh();
+        for (Node preset : presets) {
+            navMesh.addNode(preset);
+        }
+        pathfinder.addObstacles(obstacles, pool);
+        pathfinder.generateNodeEdges(pool);
+        return navMesh;
+    }
+
+    /**
+     * Builds the map for each alliance and writes them under the directory in the first argument,
+     * laid out like the deploy directory. Run by the buildNavMesh task.
+     */
+    public static void main(String[] args) throws IOException {
+        for (Alliance alliance : ALLIANCES) {
+            List<Obstacle> obstacles = Constants.FieldConstants.obstaclesFor(alliance);
+            List<Node> presets = presets();
+            VisGraph navMesh = build(obstacles, presets);
+            Path file = Path.of(args[0]).resolve(file(alliance));
+            Files.createDirectories(file.getParent());
+            NavMeshFile.write(navMesh, NavMeshFile.fingerprint(obstacles, OBSTACLE_OFFSET, presets), file);
+            System.out.println("Wrote " + alliance + " A* map with " + navMesh.getNodeSize() + " nodes and "
+                    + navMesh.getEdgeSize() + " edges to " + file);
+        }
+    }
+}
@@ -11,22 +11,28 @@ import java.util.List;
 import org.photonvision.PhotonCamera;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import frc.robot.Constants.DrivetrainConstants;
+import frc.robot.commands.AsyncAStarCommand;
 import frc.robot.commands.ChaseTagCommand;
 import frc.robot.commands.DefaultDriveCommand;
 import frc.robot.commands.FieldHeadingDriveCommand;
 import frc.robot.commands.WPIAStar;
 import frc.robot.commands.autonomous.TestAutonomous;
-import frc.robot.pathfind.Edge;
 import frc.robot.pathfind.Node;
 import frc.robot.pathfind.Obstacle;
+import frc.robot.pathfind.PathPlanningService;
+import frc.robot.pathfind.PathSimplifier;
+import frc.robot.pathfind.Pathfinder;
+import frc.robot.pathfind.TrajectoryCache;
 import frc.robot.pathfind.VisGraph;
 import frc.robot.subsystems.DrivetrainSubsystem;
 import frc.robot.subsystems.PoseEstimatorSubsystem;
@@ -52,10 +58,18 @@ public class RobotContainer {
   private final ChaseTagCommand chaseTagCommand = new ChaseTagCommand(photonCamera, drivetrainSubsystem,
       poseEstimator::getCurrentPose);
 
-  VisGraph AStarMap = new VisGraph();
-  final Node finalNode = new Node(4, 4, Rotation2d.fromDegrees(180));
+  // Prebuilt by the buildNavMesh task, presets are the first nodes
+  VisGraph AStarMap = FieldNavMesh.loadOrBuild();
+  final Node finalNode = AStarMap.getNode(0);
   //final List<Obstacle> obstacles = new ArrayList<Obstacle>();
   final List<Obstacle> obstacles = Constants.FieldConstants.obstacles;
+  // Owns AStarMap once the map is built, searches and trajectory generation run on its thread
+  final PathPlanningService pathPlanner = new PathPlanningService(
+      new Pathfinder(AStarMap, FieldNavMesh.OBSTACLE_OFFSET, obstacles));
+  // Strips waypoints the trajectory doesn't need, same clearance the map is built with
+  final PathSimplifier pathSimplifier = new PathSimplifier(obstacles, FieldNavMesh.OBSTACLE_OFFSET);
+  // Drivers go to the same spot from about the same place a lot, reuse those trajectories
+  final TrajectoryCache<Trajectory> trajectoryCache = new TrajectoryCache<>(32, 0.25, Math.toRadians(15), 0.5);
 
   private final FieldHeadingDriveCommand fieldHeadingDriveCommand = new FieldHeadingDriveCommand(
       drivetrainSubsystem,
@@ -81,21 +95,8 @@ public class RobotContainer {
     configureButtonBindings();
     configureDashboard();
 
-    AStarMap.addNode(finalNode);
-    //SetUp AStar Map
-    
-    for(int i = 0; i<obstacles.size(); i++){
-      System.out.println(obstacles.get(i));
-      Constants.FieldConstants.obstacles.get(i).offset(0.5).addNodes(AStarMap);
-    }
-
-    for(int i = 0; i<AStarMap.getNodeSize();i++){
-      Node startNode = AStarMap.getNode(i);
-      System.out.println(""+startNode.getX()+","+startNode.getY());
-      for(int j = i+1; j<AStarMap.getNodeSize(); j++){
-        AStarMap.addEdge(new Edge(startNode, AStarMap.getNode(j)), obstacles);
-      }
-    }
+    // Paths to the final node get looked up instead of searched when the command is scheduled
+    AStarMap.precomputeGoal(finalNode);
 
     
     //Obstacle o = new Obstacle(new double[]{ 0, 0, 4, 4}, new double[] {0, 4, 4, 0});
@@ -106,7 +107,10 @@ public class RobotContainer {
   }
 
   private void configureDashboard() {
-
+    ShuffleboardTab tab = Shuffleboard.getTab("Pathfinding");
+    tab.addNumber("Trajectory Cache Hits", () -> trajectoryCache.getHits());
+    tab.addNumber("Trajectory Cache Misses", () -> trajectoryCache.getMisses());
+    tab.addNumber("Trajectory Cache Hit Rate", () -> trajectoryCache.getHitRate());
   }
 
   /**
@@ -131,9 +135,15 @@ public class RobotContainer {
     controller.a().onTrue(Commands.runOnce(() -> poseEstimator.initializeGyro(0), drivetrainSubsystem));
 
     controller.y()
-        .whileTrue(new WPIAStar(drivetrainSubsystem, poseEstimator, 
-        new TrajectoryConfig(2, 2), 
-        finalNode, obstacles, AStarMap));
+        .whileTrue(new AsyncAStarCommand<Trajectory>(drivetrainSubsystem, poseEstimator, pathPlanner, finalNode,
+        (path, startVelocity) -> WPIAStar.generateTrajectory(
+            new TrajectoryConfig(2, 2).setKinematics(DrivetrainConstants.KINEMATICS).setStartVelocity(startVelocity),
+            pathSimplifier.simplify(path)),
+        trajectory -> {
+          poseEstimator.addTrajectory(trajectory);
+          return drivetrainSubsystem.createCommandForTrajectory(trajectory, poseEstimator::getCurrentPose);
+        },
+        0, trajectoryCache));
     // controller.x().whileTrue(new DriveWithPathPlanner(drivetrainSubsystem,
     // poseEstimator, new PathConstraints(2, 2),
     // new PathPoint(new Translation2d(2.33, 2.03),
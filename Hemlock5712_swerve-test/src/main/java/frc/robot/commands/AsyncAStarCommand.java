@@ -0,0 +1,172 @@
+package frc.robot.commands;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.pathfind.Node;
+import frc.robot.pathfind.PathPlanningService;
+import frc.robot.pathfind.TrajectoryCache;
+import frc.robot.subsystems.DrivetrainSubsystem;
+import frc.robot.subsystems.PoseEstimatorSubsystem;
+
+/**
+ * Drives to a node using paths planned on the {@link PathPlanningService} thread, so scheduling
+ * this never holds up the robot loop.
+ *
+ * The robot holds still until the first plan comes back, then follows it. If a replan period is
+ * given it keeps asking for new plans from wherever the robot is, and swaps to each one as it
+ * arrives while still driving the old one in the meantime.
+ *
+ * The follow command is run from inside this command (like a command group does) instead of
+ * being scheduled, since it needs the drivetrain too.
+ */
+public class AsyncAStarCommand<T> extends CommandBase {
+  private final DrivetrainSubsystem driveSystem;
+  private final PoseEstimatorSubsystem poseEstimatorSystem;
+  private final PathPlanningService planner;
+  private final Node finalPosition;
+  private final PathPlanningService.TrajectoryGenerator<T> generator;
+  private final Function<T, Command> followCommandFactory;
+  private final double replanPeriodSeconds;
+  private final TrajectoryCache<T> cache;
+  private final Timer replanTimer = new Timer();
+
+  private CompletableFuture<T> pendingPlan;
+  private Command pathDrivingCommand;
+  private boolean pathDrivingFinished;
+  private boolean noPath;
+
+  /**
+   * @param generator Turns a path into a trajectory, runs on the planning thread
+   * @param followCommandFactory Makes the command that drives a trajectory, runs on the robot thread
+   * @param replanPeriodSeconds How often to plan again from the current pose, 0 to only plan once
+   */
+  public AsyncAStarCommand(DrivetrainSubsystem d, PoseEstimatorSubsystem p, PathPlanningService planner,
+      Node finalPosition, PathPlanningService.TrajectoryGenerator<T> generator,
+      Function<T, Command> followCommandFactory, double replanPeriodSeconds) {
+    this(d, p, planner, finalPosition, generator, followCommandFactory, replanPeriodSeconds, null);
+  }
+
+  /**
+   * @param cache Trajectories to reuse when starting from about the same spot, or null to always plan
+   */
+  public AsyncAStarCommand(DrivetrainSubsystem d, PoseEstimatorSubsystem p, PathPlanningService planner,
+      Node finalPosition, PathPlanningService.TrajectoryGenerator<T> generator,
+      Function<T, Command> followCommandFactory, double replanPeriodSeconds, TrajectoryCache<T> cache) {
+    this.driveSystem = d;
+    this.poseEstimatorSystem = p;
+    this.planner = planner;
+    this.finalPosition = finalPosition;
+    this.generator = generator;
+    this.followCommandFactory = followCommandFactory;
+    this.replanPeriodSeconds = replanPeriodSeconds;
+    this.cache = cache;
+
+    addRequirements(driveSystem, poseEstimatorSystem);
+  }
+
+  @Override
+  public void initialize()
+  {
+    pathDrivingCommand = null;
+    pathDrivingFinished = false;
+    noPath = false;
+    requestPlan();
+    replanTimer.reset();
+    replanTimer.start();
+  }
+
+  @Override
+  public void execute()
+  {
+    if (pendingPlan != null && pendingPlan.isDone()) {
+      T trajectory = finishedPlan(pendingPlan);
+      pendingPlan = null;
+      if (trajectory != null) {
+        startFollowing(followCommandFactory.apply(trajectory));
+      } else if (pathDrivingCommand == null) {
+        // Nothing to fall back on, so there's no way to get there from here
+        noPath = true;
+        return;
+      }
+    }
+
+    if (pathDrivingCommand == null) {
+      // Hold still until the first plan comes back
+      driveSystem.stop();
+    } else if (!pathDrivingFinished) {
+      pathDrivingCommand.execute();
+      if (pathDrivingCommand.isFinished()) {
+        pathDrivingCommand.end(false);
+        pathDrivingFinished = true;
+      }
+    }
+
+    if (replanPeriodSeconds > 0 && pendingPlan == null && !pathDrivingFinished
+        && replanTimer.advanceIfElapsed(replanPeriodSeconds)) {
+      requestPlan();
+    }
+  }
+
+  @Override
+  public boolean isFinished()
+  {
+    return noPath || pathDrivingFinished;
+  }
+
+  @Override
+  public void end(boolean interrupted)
+  {
+    if (pendingPlan != null) {
+      planner.cancel();
+      pendingPlan = null;
+    }
+    if (pathDrivingCommand != null && !pathDrivingFinished) {
+      pathDrivingCommand.end(true);
+    }
+    replanTimer.stop();
+
+    driveSystem.stop();
+  }
+
+  private void requestPlan() {
+    // Read everything the planner needs here, the subsystems aren't safe to touch from its thread
+    var pose = poseEstimatorSystem.getCurrentPose();
+    ChassisSpeeds speeds = driveSystem.getChassisSpeeds();
+    Node startPoint = new Node(pose.getX(), pose.getY(), pose.getRotation());
+    double startVelocity = Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond);
+    pendingPlan = planner.request(startPoint, finalPosition, startVelocity, generator, cache);
+  }
+
+  // The planned trajectory, or null if there's no path, the plan was replaced, or planning failed
+  private T finishedPlan(CompletableFuture<T> plan) {
+    try {
+      return plan.join();
+    } catch (CancellationException e) {
+      return null;
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      if (!(cause instanceof CancellationException)) {
+        // Otherwise a bug in the planner looks just like an unreachable goal
+        DriverStation.reportError("Path planning failed: " + cause, cause.getStackTrace());
+      }
+      return null;
+    }
+  }
+
+  private void startFollowing(Command next) {
+    if (pathDrivingCommand != null && !pathDrivingFinished) {
+      pathDrivingCommand.end(true);
+    }
+    pathDrivingCommand = next;
+    pathDrivingFinished = false;
+    pathDrivingCommand.initialize();
+  }
+}
@@ -1,6 +1,5 @@
 package frc.robot.commands;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -13,7 +12,6 @@ import com.pathplanner.lib.commands.PPSwerveControllerCommand;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj2.command.CommandBase;
-import frc.robot.pathfind.Edge;
 import frc.robot.pathfind.Node;
 import frc.robot.pathfind.Obstacle;
 import frc.robot.pathfind.VisGraph;
@@ -54,22 +52,27 @@ public class PPAStar extends CommandBase {
   {
     startPoint = new Node(poseEstimatorSystem.getCurrentPose().getX(), poseEstimatorSystem.getCurrentPose().getY(), poseEstimatorSystem.getCurrentPose().getRotation());
     PathPlannerTrajectory trajectory;
-    List<Node> fullPath = new ArrayList<Node>();
 
-    AStarMap.addNode(startPoint);
-   if(AStarMap.addEdge(new Edge(startPoint, finalPosition), obstacles)){
-      fullPath.add(0,startPoint);
-      fullPath.add(1,finalPosition);
+    // Start point is only attached to the map for this search, so the map doesn't grow every time we're scheduled.
+    // If the final position is in sight this comes back as just the two points.
+    List<Node> fullPath = AStarMap.findPath(startPoint, finalPosition, obstacles);
+    if (fullPath == null) {
+      pathDrivingCommand = null;
+      return;
     }
-    else{
-      for (int i = 0; i < AStarMap.getNodeSize(); i++) {
-        Node endNode = AStarMap.getNode(i);
-        AStarMap.addEdge(new Edge(startPoint, endNode), obstacles);
-      }
-      fullPath =  AStarMap.findPath(startPoint, finalPosition);
-    }
-    
 
+    trajectory = generateTrajectory(constraints, fullPath);
+    pathDrivingCommand = DrivetrainSubsystem.followTrajectory(driveSystem, poseEstimatorSystem, trajectory);
+    pathDrivingCommand.schedule();
+  }
+
+  /**
+   * Turns a path from the A* map into a PathPlanner trajectory. Each interior point heads towards the next one,
+   * the first and last points keep their own holonomic rotation.
+   */
+  public static PathPlannerTrajectory generateTrajectory(PathConstraints constraints, List<Node> fullPath) {
+    Node startPoint = fullPath.get(0);
+    Node finalPosition = fullPath.get(fullPath.size() - 1);
     // Depending on if internal points are present, make a new array of the other
     // points in the path.
     PathPoint[] fullPathPoints = new PathPoint[fullPath.size()];
@@ -90,9 +93,7 @@ public class PPAStar extends CommandBase {
     }
     
     // Declare an array to hold PathPoint objects made from all other points specified in constructor.
-    trajectory = PathPlanner.generatePath(constraints, Arrays.asList(fullPathPoints));
-    pathDrivingCommand = DrivetrainSubsystem.followTrajectory(driveSystem, poseEstimatorSystem, trajectory);
-    pathDrivingCommand.schedule();
+    return PathPlanner.generatePath(constraints, Arrays.asList(fullPathPoints));
   }
 
   @Override
@@ -104,7 +105,7 @@ public class PPAStar extends CommandBase {
   @Override
   public void end(boolean interrupted)
   {
-    if (interrupted)
+    if (interrupted && pathDrivingCommand != null)
     {
       pathDrivingCommand.cancel();
     }
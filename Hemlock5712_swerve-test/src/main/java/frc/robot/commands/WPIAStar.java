@@ -1,6 +1,5 @@
 package frc.robot.commands;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import edu.wpi.first.math.geometry.Pose2d;
@@ -11,7 +10,6 @@ import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants.DrivetrainConstants;
-import frc.robot.pathfind.Edge;
 import frc.robot.pathfind.Node;
 import frc.robot.pathfind.Obstacle;
 import frc.robot.pathfind.VisGraph;
@@ -50,47 +48,41 @@ public class WPIAStar extends CommandBase {
   public void initialize() 
   {
     config.setStartVelocity(Math.hypot(driveSystem.getChassisSpeeds().vxMetersPerSecond,driveSystem.getChassisSpeeds().vxMetersPerSecond));
-    List<Node> fullPath = new ArrayList<Node>();
     startPoint = new Node(poseEstimatorSystem.getCurrentPose().getX(), poseEstimatorSystem.getCurrentPose().getY(), poseEstimatorSystem.getCurrentPose().getRotation()); 
-    AStarMap.addNode(startPoint);
-    if(AStarMap.addEdge(new Edge(startPoint, finalPosition), obstacles)){
-      fullPath.add(0,startPoint);
-      fullPath.add(1,finalPosition);
+    // Start point is only attached to the map for this search, so the map doesn't grow every time we're scheduled.
+    // If the final position is in sight this comes back as just the two points.
+    List<Node> fullPath = AStarMap.findPath(startPoint, finalPosition, obstacles);
+    if (fullPath == null) {
+      pathDrivingCommand = null;
+      return;
     }
-    else{
-      for (int i = 0; i < AStarMap.getNodeSize(); i++) {
-        Node endNode = AStarMap.getNode(i);
-        AStarMap.addEdge(new Edge(startPoint, endNode), obstacles);
-        //System.out.println(String.format("SUCCESS: %f,%f %f,%f - %s", startPoint.getX(), startPoint.getY(), endNode.getX(), endNode.getY(), test ? "true" : "false"));
-      }
-      fullPath = AStarMap.findPath(startPoint, finalPosition);
 
-    }
-    
+    Trajectory exampleTrajectory = generateTrajectory(config, fullPath);
+    poseEstimatorSystem.addTrajectory(exampleTrajectory);
+    pathDrivingCommand = driveSystem.createCommandForTrajectory(exampleTrajectory, poseEstimatorSystem::getCurrentPose);
+    //RunCommand pathDrivingCommand = new RunCommand(driveSystem::stop, driveSystem);
+    //pathDrivingCommand = DrivetrainSubsystem.followTrajectory(driveSystem, poseEstimatorSystem, trajectory);
+    pathDrivingCommand.schedule();
+  }
 
+  /**
+   * Turns a path from the A* map into a WPILib trajectory, passing through every interior point.
+   * The first and last points keep their own holonomic rotation.
+   */
+  public static Trajectory generateTrajectory(TrajectoryConfig config, List<Node> fullPath) {
+    Node startPoint = fullPath.get(0);
+    Node finalPosition = fullPath.get(fullPath.size() - 1);
     // Depending on if internal points are present, make a new array of the other
     // points in the path.
     Translation2d[] fullPathPoints = new Translation2d[fullPath.size()-2];
     for(int i=1; i<fullPath.size()-1; i++){
         fullPathPoints[i-1] = new Translation2d(fullPath.get(i).getX(), fullPath.get(i).getY());
     }
-    // Declare an array to hold PathPoint objects made from all other points specified in constructor.
-  // An example trajectory to follow.  All units in meters.
-    Trajectory exampleTrajectory =
-    TrajectoryGenerator.generateTrajectory(
-        // Start at the origin facing the +X direction
+    return TrajectoryGenerator.generateTrajectory(
         new Pose2d(startPoint.getX(), startPoint.getY(), startPoint.getHolRot()),
-        // Pass through these two interior waypoints, making an 's' curve path
         List.of(fullPathPoints),
-        // End 3 meters straight ahead of where we started, facing forward
         new Pose2d(finalPosition.getX(), finalPosition.getY(), finalPosition.getHolRot()),
-        // Pass config
         config);
-    poseEstimatorSystem.addTrajectory(exampleTrajectory);
-    pathDrivingCommand = driveSystem.createCommandForTrajectory(exampleTrajectory, poseEstimatorSystem::getCurrentPose);
-    //RunCommand pathDrivingCommand = new RunCommand(driveSystem::stop, driveSystem);
-    //pathDrivingCommand = DrivetrainSubsystem.followTrajectory(driveSystem, poseEstimatorSystem, trajectory);
-    pathDrivingCommand.schedule();
   }
 
   @Override
@@ -102,7 +94,7 @@ public class WPIAStar extends CommandBase {
   @Override
   public void end(boolean interrupted)
   {
-    if (interrupted)
+    if (interrupted && pathDrivingCommand != null)
     {
       pathDrivingCommand.cancel();
     }
@@ -0,0 +1,48 @@
+package frc.robot.pathfind;
+
+import java.util.List;
+
+/**
+ * An obstacle added to a {@link Pathfinder} after the mesh is built, like another robot seen by
+ * vision. Returned by {@link Pathfinder#addDynamicObstacle(Obstacle)} or
+ * {@link PathPlanningService#addDynamicObstacle(Obstacle)}, pass it back to the same one's
+ * removeDynamicObstacle once the obstacle moves or goes away.
+ */
+public class DynamicObstacle {
+    final Obstacle obstacle;
+    // Offset the same as the static obstacles, edges are allowed to touch it but not go through it
+    final Obstacle inflated;
+    final ObstacleIndex index;
+    // Bounding box of the inflated obstacle, edges entirely outside it can't go through it
+    final double minX, minY, maxX, maxY;
+
+    // Set by the planner while the obstacle is in it
+    // Slots of the nodes added for the inflated corners
+    int[] cornerSlots = new int[0];
+    // Edges this obstacle blocked, packed as (edge id << 32 | edge generation)
+    long[] blockedEdges = new long[0];
+    int blockedEdgeCount;
+
+    DynamicObstacle(Obstacle obstacle, double offsetDistance) {
+        this.obstacle = obstacle;
+        this.inflated = obstacle.offset(offsetDistance);
+        this.index = new ObstacleIndex(List.of(inflated), true);
+        PolygonDouble polygon = inflated.polygon;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < polygon.npoints; i++) {
+            x0 = Math.min(x0, polygon.xpoints[i]);
+            y0 = Math.min(y0, polygon.ypoints[i]);
+            x1 = Math.max(x1, polygon.xpoints[i]);
+            y1 = Math.max(y1, polygon.ypoints[i]);
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+    }
+
+    public Obstacle getObstacle() {
+        return obstacle;
+    }
+}
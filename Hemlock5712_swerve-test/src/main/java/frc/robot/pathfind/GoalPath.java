@@ -0,0 +1,46 @@
+package frc.robot.pathfind;
+
+import java.util.List;
+
+/**
+ * The goal a multi-goal query picked and the path to it, from
+ * {@link Pathfinder#findPathToNearest(Node, List, double[])}.
+ */
+public class GoalPath {
+    private final Node goal;
+    private final int goalIndex;
+    private final List<Node> path;
+    private final double cost;
+
+    GoalPath(Node goal, int goalIndex, List<Node> path, double cost) {
+        this.goal = goal;
+        this.goalIndex = goalIndex;
+        this.path = path;
+        this.cost = cost;
+    }
+
+    public Node getGoal() {
+        return goal;
+    }
+
+    /**
+     * @return Position of the goal in the list that was passed in
+     */
+    public int getGoalIndex() {
+        return goalIndex;
+    }
+
+    /**
+     * @return List of nodes from the start point to the goal to create a trajectory through
+     */
+    public List<Node> getPath() {
+        return path;
+    }
+
+    /**
+     * @return Length of the path plus the goal's bias
+     */
+    public double getCost() {
+        return cost;
+    }
+}
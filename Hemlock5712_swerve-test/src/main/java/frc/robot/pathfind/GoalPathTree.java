@@ -0,0 +1,97 @@
+package frc.robot.pathfind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortest distance and next hop from every node of a {@link VisGraph} to one goal node.
+ *
+ * Built by running Dijkstra outwards from the goal (edges go both ways, so that's the same as
+ * searching backwards). Once it's built, the best path from any point is the visible node v
+ * with the smallest distance(point, v) + distanceToGoal[v], followed by the next hops from v.
+ */
+class GoalPathTree {
+    final Node goal;
+    // Graph version the tree was built from, stale if the graph has changed since
+    final long graphVersion;
+    private final double[] distanceToGoal;
+    private final int[] nextHop;
+
+    GoalPathTree(List<Node> nodes, Node goal, long graphVersion) {
+        this.goal = goal;
+        this.graphVersion = graphVersion;
+        int nodeCount = nodes.size();
+        distanceToGoal = new double[nodeCount];
+        nextHop = new int[nodeCount];
+        Arrays.fill(distanceToGoal, Double.POSITIVE_INFINITY);
+        Arrays.fill(nextHop, -1);
+
+        IndexedMinHeap openSet = new IndexedMinHeap(nodeCount);
+        boolean[] closed = new boolean[nodeCount];
+        distanceToGoal[goal.index] = 0.0;
+        openSet.insertOrDecrease(goal.index, 0.0);
+        while (!openSet.isEmpty()) {
+            int currentIndex = openSet.poll();
+            closed[currentIndex] = true;
+            Node current = nodes.get(currentIndex);
+            List<Node> neighbors = current.neighbors;
+            for (int i = 0; i < neighbors.size(); i++) {
+                Node neighbor = neighbors.get(i);
+                int neighborIndex = neighbor.index;
+                if (neighborIndex < 0 || neighborIndex >= nodeCount || nodes.get(neighborIndex) != neighbor
+                        || closed[neighborIndex]) {
+                    continue;
+                }
+                double distance = distanceToGoal[currentIndex] + distance(current, neighbor);
+                if (distance < distanceToGoal[neighborIndex]) {
+                    distanceToGoal[neighborIndex] = distance;
+                    nextHop[neighborIndex] = currentIndex;
+                    openSet.insertOrDecrease(neighborIndex, distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the shortest path from a point that isn't part of the graph to the goal.
+     *
+     * @param nodes Nodes of the graph the tree was built from
+     * @param obstacleIndex Obstacles to check the first leg from the start point against
+     * @return Path from start to goal, or null if the start can't see any node connected to the goal
+     */
+    List<Node> findPath(List<Node> nodes, Node start, ObstacleIndex obstacleIndex) {
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < distanceToGoal.length; i++) {
+            double remaining = distanceToGoal[i];
+            if (remaining == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            Node node = nodes.get(i);
+            double cost = distance(start, node) + remaining;
+            // Only run the visibility check if this node would actually be an improvement
+            if (cost < bestCost && !obstacleIndex.blocks(start.x, start.y, node.x, node.y)) {
+                best = i;
+                bestCost = cost;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+
+        List<Node> path = new ArrayList<>();
+        path.add(start);
+        for (int current = best; current >= 0; current = nextHop[current]) {
+            path.add(nodes.get(current));
+        }
+        return path;
+    }
+
+    // Calculate the distance between two nodes
+    private static double distance(Node n1, Node n2) {
+        double dx = n1.x - n2.x;
+        double dy = n1.y - n2.y;
+        return Math.hypot(dx, dy);
+    }
+}
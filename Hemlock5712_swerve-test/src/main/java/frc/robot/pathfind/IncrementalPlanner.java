@@ -0,0 +1,437 @@
+package frc.robot.pathfind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps shortest paths to one goal up to date while dynamic obstacles come and go.
+ *
+ * Starts as a copy of a {@link VisGraph}'s nodes and edges. A dynamic obstacle blocks the edges
+ * that go through it and adds its inflated corners as extra nodes, connected to everything they
+ * can see. Removing it takes the corners back out and unblocks its edges. Nothing else in the graph
+ * is touched.
+ *
+ * Distances to the goal are kept with LPA* running backwards from the goal. When edges change,
+ * only their end nodes are marked inconsistent, and repairing them only touches nodes whose
+ * distance actually changed. So a replan costs about as much as the change, not a whole search.
+ * The heuristic is zero (every node is kept consistent, not just the ones between one start
+ * and the goal). That way the answer works for any start point, which matters because the robot
+ * is somewhere new every query. The start is then connected the same way {@link GoalPathTree}
+ * does it.
+ *
+ * Node slots and edge ids are reused as obstacles move, so the arrays stop growing once a few
+ * obstacles have been through. Not thread safe.
+ */
+class IncrementalPlanner {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    // Graph version this was copied from, rebuild if the mesh changes
+    final long meshVersion;
+    private final ObstacleIndex staticIndex;
+    private final List<DynamicObstacle> obstacles = new ArrayList<>();
+
+    // Node slot -> node, null if the slot is free. Mesh nodes keep their VisGraph index.
+    private final List<Node> nodes = new ArrayList<>();
+    private int[][] nodeEdges = new int[0][];
+    private int[] nodeDegree = new int[0];
+    private int[] freeNodes = new int[0];
+    private int freeNodeCount;
+
+    private int[] edgeFrom = new int[0];
+    private int[] edgeTo = new int[0];
+    private double[] edgeCost = new double[0];
+    // Number of dynamic obstacles going through the edge, it's only usable at 0
+    private int[] edgeBlocked = new int[0];
+    // Bumped every time an edge id is freed, so obstacles can tell their old edges were reused
+    private int[] edgeGeneration = new int[0];
+    private boolean[] edgeAlive = new boolean[0];
+    private int edgeCount;
+    private int[] freeEdges = new int[0];
+    private int freeEdgeCount;
+    private int[] neighborScratch = new int[0];
+
+    // LPA* state, g is the current distance to the goal and rhs is what it should be
+    private double[] g = new double[0];
+    private double[] rhs = new double[0];
+    private final IndexedMinHeap openSet = new IndexedMinHeap(0);
+    private int goal = -1;
+    // Nodes expanded by the last repair, to see how much work a change cost
+    int lastExpansions;
+
+    /**
+     * @param staticIndex Obstacles the mesh was built against, to check edges from new corners with
+     */
+    IncrementalPlanner(VisGraph navMesh, ObstacleIndex staticIndex) {
+        this.meshVersion = navMesh.getVersion();
+        this.staticIndex = staticIndex;
+        int nodeCount = navMesh.getNodeSize();
+        ensureNodeCapacity(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(navMesh.getNode(i));
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = navMesh.getNode(i);
+            for (Node neighbor : node.neighbors) {
+                // Every edge is in both neighbor lists, only copy it from the lower index.
+                // That also skips nodes that were linked in but aren't part of the mesh.
+                if (neighbor.index > i && navMesh.containsNode(neighbor)) {
+                    addEdge(i, neighbor.index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Plans to a new goal from scratch. The goal has to be a node of the mesh.
+     */
+    void setGoal(Node goalNode) {
+        goal = goalNode.index;
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        openSet.clear();
+        rhs[goal] = 0.0;
+        openSet.insertOrUpdate(goal, 0.0);
+        computeShortestPaths();
+    }
+
+    boolean hasGoal(Node goalNode) {
+        return goal >= 0 && nodes.get(goal) == goalNode;
+    }
+
+    void insert(DynamicObstacle obstacle) {
+        obstacles.add(obstacle);
+        ObstacleIndex index = obstacle.index;
+
+        // Block every edge that goes through the obstacle. Only edges whose bounding box
+        // overlaps the obstacle's get the exact check, which is most of the cost.
+        obstacle.blockedEdgeCount = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (!edgeAlive[e]) {
+                continue;
+            }
+            Node from = nodes.get(edgeFrom[e]);
+            Node to = nodes.get(edgeTo[e]);
+            if (overlaps(obstacle, from.x, from.y, to.x, to.y) && index.blocks(from.x, from.y, to.x, to.y) && block(e, obstacle)) {
+                updateNode(edgeFrom[e]);
+                updateNode(edgeTo[e]);
+            }
+        }
+
+        // Add the corners and connect them to everything the static obstacles don't hide.
+        // Edges through other dynamic obstacles are still added, just blocked, so they're
+        // there once that obstacle goes away.
+        PolygonDouble polygon = obstacle.inflated.polygon;
+        obstacle.cornerSlots = new int[polygon.npoints];
+        for (int c = 0; c < polygon.npoints; c++) {
+            Node corner = new Node(polygon.xpoints[c], polygon.ypoints[c]);
+            int slot = addNode(corner);
+            obstacle.cornerSlots[c] = slot;
+            for (int other = 0; other < nodes.size(); other++) {
+                Node node = nodes.get(other);
+                if (other == slot || node == null || staticIndex.blocks(corner.x, corner.y, node.x, node.y)) {
+                    continue;
+                }
+                int e = addEdge(slot, other);
+                for (int i = 0; i < obstacles.size(); i++) {
+                    DynamicObstacle blocker = obstacles.get(i);
+                    if (overlaps(blocker, corner.x, corner.y, node.x, node.y) && blocker.index.blocks(corner.x, corner.y, node.x, node.y)) {
+                        block(e, blocker);
+                    }
+                }
+            }
+            updateNode(slot);
+        }
+        computeShortestPaths();
+    }
+
+    // True if the bounding boxes of the obstacle and the line overlap
+    private static boolean overlaps(DynamicObstacle obstacle, double x1, double y1, double x2, double y2) {
+        return Math.max(x1, x2) >= obstacle.minX && Math.min(x1, x2) <= obstacle.maxX
+                && Math.max(y1, y2) >= obstacle.minY && Math.min(y1, y2) <= obstacle.maxY;
+    }
+
+    // Marks the edge as going through the obstacle, true if it was usable before
+    private boolean block(int e, DynamicObstacle obstacle) {
+        if (obstacle.blockedEdgeCount == obstacle.blockedEdges.length) {
+            obstacle.blockedEdges = Arrays.copyOf(obstacle.blockedEdges, Math.max(8, obstacle.blockedEdgeCount * 2));
+        }
+        obstacle.blockedEdges[obstacle.blockedEdgeCount++] = ((long) e << 32) | (edgeGeneration[e] & 0xFFFFFFFFL);
+        return edgeBlocked[e]++ == 0;
+    }
+
+    void remove(DynamicObstacle obstacle) {
+        if (!obstacles.remove(obstacle)) {
+            return;
+        }
+        // Corners first, so their edges don't get unblocked just to be removed
+        for (int slot : obstacle.cornerSlots) {
+            removeNode(slot);
+        }
+        obstacle.cornerSlots = new int[0];
+
+        for (int i = 0; i < obstacle.blockedEdgeCount; i++) {
+            long packed = obstacle.blockedEdges[i];
+            int e = (int) (packed >>> 32);
+            // Skip edges that were removed (and maybe reused) since this obstacle blocked them
+            if (!edgeAlive[e] || edgeGeneration[e] != (int) packed) {
+                continue;
+            }
+            if (--edgeBlocked[e] == 0) {
+                updateNode(edgeFrom[e]);
+                updateNode(edgeTo[e]);
+            }
+        }
+        obstacle.blockedEdgeCount = 0;
+        computeShortestPaths();
+    }
+
+    /**
+     * Finds the shortest path from a point that isn't part of the graph to the goal.
+     *
+     * @return Path from start to goal, or null if there's no goal or the start can't reach it
+     */
+    List<Node> findPath(Node start) {
+        if (goal < 0) {
+            return null;
+        }
+        int best = -1;
+        double bestCost = INF;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node == null || g[i] == INF) {
+                continue;
+            }
+            double cost = distance(start, node) + g[i];
+            // Only run the visibility check if this node would actually be an improvement
+            if (cost < bestCost && isVisible(start.x, start.y, node.x, node.y)) {
+                best = i;
+                bestCost = cost;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+
+        List<Node> path = new ArrayList<>();
+        path.add(start);
+        int current = best;
+        path.add(nodes.get(current));
+        // Every node is consistent, so walking downhill always ends at the goal.
+        // The step limit is only there in case of rounding ties.
+        for (int steps = 0; current != goal && steps < nodes.size(); steps++) {
+            current = bestNeighbor(current);
+            if (current < 0) {
+                return null;
+            }
+            path.add(nodes.get(current));
+        }
+        return current == goal ? path : null;
+    }
+
+    // Blocked by neither the static obstacles nor any dynamic one
+    private boolean isVisible(double x1, double y1, double x2, double y2) {
+        if (staticIndex.blocks(x1, y1, x2, y2)) {
+            return false;
+        }
+        for (int i = 0; i < obstacles.size(); i++) {
+            DynamicObstacle obstacle = obstacles.get(i);
+            if (overlaps(obstacle, x1, y1, x2, y2) && obstacle.index.blocks(x1, y1, x2, y2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // LPA*, with every node's key being min(g, rhs) since there's no heuristic
+    private void computeShortestPaths() {
+        lastExpansions = 0;
+        if (goal < 0) {
+            openSet.clear();
+            return;
+        }
+        while (!openSet.isEmpty()) {
+            int u = openSet.poll();
+            lastExpansions++;
+            if (g[u] > rhs[u]) {
+                // Got shorter, neighbors might be able to use it
+                g[u] = rhs[u];
+            } else {
+                // Got longer or unreachable, neighbors routed through it have to look again
+                g[u] = INF;
+                updateNode(u);
+            }
+            int[] adjacent = nodeEdges[u];
+            for (int i = 0; i < nodeDegree[u]; i++) {
+                updateNode(other(adjacent[i], u));
+            }
+        }
+    }
+
+    private void updateNode(int u) {
+        if (goal < 0) {
+            return;
+        }
+        if (u != goal) {
+            rhs[u] = INF;
+            int[] adjacent = nodeEdges[u];
+            for (int i = 0; i < nodeDegree[u]; i++) {
+                int e = adjacent[i];
+                if (edgeBlocked[e] == 0) {
+                    rhs[u] = Math.min(rhs[u], edgeCost[e] + g[other(e, u)]);
+                }
+            }
+        }
+        if (g[u] != rhs[u]) {
+            openSet.insertOrUpdate(u, Math.min(g[u], rhs[u]));
+        } else {
+            openSet.remove(u);
+        }
+    }
+
+    // Neighbor with the lowest edge cost + distance to goal
+    private int bestNeighbor(int u) {
+        int best = -1;
+        double bestCost = INF;
+        int[] adjacent = nodeEdges[u];
+        for (int i = 0; i < nodeDegree[u]; i++) {
+            int e = adjacent[i];
+            if (edgeBlocked[e] != 0) {
+                continue;
+            }
+            int v = other(e, u);
+            double cost = edgeCost[e] + g[v];
+            if (cost < bestCost) {
+                best = v;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private int other(int e, int u) {
+        return edgeFrom[e] == u ? edgeTo[e] : edgeFrom[e];
+    }
+
+    private int addNode(Node node) {
+        int slot;
+        if (freeNodeCount > 0) {
+            slot = freeNodes[--freeNodeCount];
+            nodes.set(slot, node);
+        } else {
+            slot = nodes.size();
+            ensureNodeCapacity(slot + 1);
+            nodes.add(node);
+        }
+        nodeDegree[slot] = 0;
+        g[slot] = INF;
+        rhs[slot] = INF;
+        return slot;
+    }
+
+    private void removeNode(int slot) {
+        int degree = nodeDegree[slot];
+        if (neighborScratch.length < degree) {
+            neighborScratch = new int[degree];
+        }
+        int[] adjacent = nodeEdges[slot];
+        for (int i = degree - 1; i >= 0; i--) {
+            int e = adjacent[i];
+            int v = other(e, slot);
+            neighborScratch[i] = v;
+            removeAdjacent(v, e);
+            edgeAlive[e] = false;
+            edgeGeneration[e]++;
+            if (freeEdgeCount == freeEdges.length) {
+                freeEdges = Arrays.copyOf(freeEdges, Math.max(16, freeEdgeCount * 2));
+            }
+            freeEdges[freeEdgeCount++] = e;
+        }
+        nodeDegree[slot] = 0;
+        nodes.set(slot, null);
+        g[slot] = INF;
+        rhs[slot] = INF;
+        openSet.remove(slot);
+        if (freeNodeCount == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, Math.max(8, freeNodeCount * 2));
+        }
+        freeNodes[freeNodeCount++] = slot;
+
+        // Neighbors might have been routed through it
+        for (int i = 0; i < degree; i++) {
+            updateNode(neighborScratch[i]);
+        }
+    }
+
+    private int addEdge(int a, int b) {
+        int e;
+        if (freeEdgeCount > 0) {
+            e = freeEdges[--freeEdgeCount];
+        } else {
+            e = edgeCount++;
+            ensureEdgeCapacity(edgeCount);
+        }
+        edgeFrom[e] = a;
+        edgeTo[e] = b;
+        edgeCost[e] = distance(nodes.get(a), nodes.get(b));
+        edgeBlocked[e] = 0;
+        edgeAlive[e] = true;
+        addAdjacent(a, e);
+        addAdjacent(b, e);
+        return e;
+    }
+
+    private void addAdjacent(int u, int e) {
+        if (nodeEdges[u] == null) {
+            nodeEdges[u] = new int[8];
+        } else if (nodeDegree[u] == nodeEdges[u].length) {
+            nodeEdges[u] = Arrays.copyOf(nodeEdges[u], nodeDegree[u] * 2);
+        }
+        nodeEdges[u][nodeDegree[u]++] = e;
+    }
+
+    private void removeAdjacent(int u, int e) {
+        int[] adjacent = nodeEdges[u];
+        for (int i = nodeDegree[u] - 1; i >= 0; i--) {
+            if (adjacent[i] == e) {
+                adjacent[i] = adjacent[--nodeDegree[u]];
+                return;
+            }
+        }
+    }
+
+    private void ensureNodeCapacity(int capacity) {
+        openSet.ensureCapacity(capacity);
+        if (capacity <= g.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, g.length * 2);
+        nodeEdges = Arrays.copyOf(nodeEdges, newLength);
+        nodeDegree = Arrays.copyOf(nodeDegree, newLength);
+        int oldLength = g.length;
+        g = Arrays.copyOf(g, newLength);
+        rhs = Arrays.copyOf(rhs, newLength);
+        Arrays.fill(g, oldLength, newLength, INF);
+        Arrays.fill(rhs, oldLength, newLength, INF);
+    }
+
+    private void ensureEdgeCapacity(int capacity) {
+        if (capacity <= edgeFrom.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, edgeFrom.length * 2);
+        edgeFrom = Arrays.copyOf(edgeFrom, newLength);
+        edgeTo = Arrays.copyOf(edgeTo, newLength);
+        edgeCost = Arrays.copyOf(edgeCost, newLength);
+        edgeBlocked = Arrays.copyOf(edgeBlocked, newLength);
+        edgeGeneration = Arrays.copyOf(edgeGeneration, newLength);
+        edgeAlive = Arrays.copyOf(edgeAlive, newLength);
+    }
+
+    // Calculate the distance between two nodes
+    private static double distance(Node n1, Node n2) {
+        double dx = n1.x - n2.x;
+        double dy = n1.y - n2.y;
+        return Math.hypot(dx, dy);
+    }
+}
@@ -0,0 +1,224 @@
+package frc.robot.pathfind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A* search over the dense node indices of a {@link VisGraph}.
+ *
+ * g scores and parents are kept in primitive arrays, and the open set is an
+ * {@link IndexedMinHeap} keyed on f score, so a query is O((V + E) log V) and doesn't box
+ * anything. The arrays are reused between queries; instead of clearing them every time,
+ * each entry is tagged with the query it was written in and treated as unset otherwise.
+ *
+ * Not thread safe, one instance per graph.
+ */
+class IndexedAStar {
+    private double[] gScore = new double[0];
+    private int[] cameFrom = new int[0];
+    // Query number that gScore/cameFrom were last written in
+    private int[] visitedQuery = new int[0];
+    // Query number the node was closed in
+    private int[] closedQuery = new int[0];
+    private int query = 0;
+    private final IndexedMinHeap openSet = new IndexedMinHeap(0);
+    // Multi-goal searches only: heuristic of each visited node, and the cost of finishing at each
+    // goal, valid for nodes whose exitQuery is the current query
+    private double[] hScore = new double[0];
+    private double[] exitCost = new double[0];
+    private int[] exitQuery = new int[0];
+
+    /**
+     * Finds the shortest path between two nodes that are both part of the node list.
+     *
+     * @param nodes Nodes of the graph, where each node's index matches its position in the list
+     * @return Path from start to goal, or null if no path is found
+     */
+    List<Node> findPath(List<Node> nodes, Node start, Node goal) {
+        int nodeCount = nodes.size();
+        ensureCapacity(nodeCount);
+        nextQuery();
+
+        int startIndex = start.index;
+        int goalIndex = goal.index;
+        visit(startIndex, 0.0, -1);
+        openSet.insertOrDecrease(startIndex, distance(start, goal));
+
+        while (!openSet.isEmpty()) {
+            int currentIndex = openSet.poll();
+            if (currentIndex == goalIndex) {
+                return reconstructPath(nodes, currentIndex);
+            }
+            closedQuery[currentIndex] = query;
+            Node current = nodes.get(currentIndex);
+            double currentG = gScore[currentIndex];
+
+            List<Node> neighbors = current.neighbors;
+            for (int i = 0; i < neighbors.size(); i++) {
+                Node neighbor = neighbors.get(i);
+                int neighborIndex = neighbor.index;
+                // Skip nodes that were linked in but never added to this graph
+                if (neighborIndex < 0 || neighborIndex >= nodeCount || nodes.get(neighborIndex) != neighbor) {
+                    continue;
+                }
+                if (closedQuery[neighborIndex] == query) {
+                    continue;
+                }
+                double tentativeGScore = currentG + distance(current, neighbor);
+                if (visitedQuery[neighborIndex] != query || tentativeGScore < gScore[neighborIndex]) {
+                    visit(neighborIndex, tentativeGScore, currentIndex);
+                    openSet.insertOrDecrease(neighborIndex, tentativeGScore + distance(neighbor, goal));
+                }
+            }
+        }
+
+        // If we get here, then no path was found
+        return null;
+    }
+
+    /**
+     * Finds the cheapest path from the start to any of the goals, in one search.
+     *
+     * Reaching goal k costs the path length plus bias[k]. That's the same as adding a virtual
+     * node after all the goals, reached from goal k by an edge of cost bias[k], and searching for
+     * it. The heuristic is the straight line to each goal plus its bias, taking the smallest, which
+     * never overestimates and stays consistent, so the first time the virtual node comes off the
+     * heap it's through the cheapest goal.
+     *
+     * @param nodes Nodes of the graph, where each node's index matches its position in the list
+     * @param goalIndices Indices of the goals, repeats are fine and cost the smaller bias
+     * @param bias Extra cost for finishing at each goal, can't be negative
+     * @return Path from start to the cheapest goal, or null if none of them can be reached
+     */
+    List<Node> findPathToAny(List<Node> nodes, Node start, int[] goalIndices, double[] bias) {
+        int nodeCount = nodes.size();
+        // The virtual node after the goals gets the index after the last real node
+        int sink = nodeCount;
+        ensureCapacity(nodeCount + 1);
+        nextQuery();
+
+        for (int k = 0; k < goalIndices.length; k++) {
+            int goal = goalIndices[k];
+            if (exitQuery[goal] != query || bias[k] < exitCost[goal]) {
+                exitQuery[goal] = query;
+                exitCost[goal] = bias[k];
+            }
+        }
+        double[] goalX = new double[goalIndices.length];
+        double[] goalY = new double[goalIndices.length];
+        for (int k = 0; k < goalIndices.length; k++) {
+            goalX[k] = nodes.get(goalIndices[k]).x;
+            goalY[k] = nodes.get(goalIndices[k]).y;
+        }
+
+        int startIndex = start.index;
+        visit(startIndex, 0.0, -1);
+        hScore[startIndex] = heuristic(start, goalX, goalY, bias);
+        openSet.insertOrDecrease(startIndex, hScore[startIndex]);
+
+        while (!openSet.isEmpty()) {
+            int currentIndex = openSet.poll();
+            if (currentIndex == sink) {
+                return reconstructPath(nodes, cameFrom[sink]);
+            }
+            closedQuery[currentIndex] = query;
+            Node current = nodes.get(currentIndex);
+            double currentG = gScore[currentIndex];
+
+            if (exitQuery[currentIndex] == query) {
+                double exitG = currentG + exitCost[currentIndex];
+                if (visitedQuery[sink] != query || exitG < gScore[sink]) {
+                    visit(sink, exitG, currentIndex);
+                    openSet.insertOrDecrease(sink, exitG);
+                }
+            }
+
+            List<Node> neighbors = current.neighbors;
+            for (int i = 0; i < neighbors.size(); i++) {
+                Node neighbor = neighbors.get(i);
+                int neighborIndex = neighbor.index;
+                // Skip nodes that were linked in but never added to this graph
+                if (neighborIndex < 0 || neighborIndex >= nodeCount || nodes.get(neighborIndex) != neighbor) {
+                    continue;
+                }
+                if (closedQuery[neighborIndex] == query) {
+                    continue;
+                }
+                double tentativeGScore = currentG + distance(current, neighbor);
+                boolean firstVisit = visitedQuery[neighborIndex] != query;
+                if (firstVisit || tentativeGScore < gScore[neighborIndex]) {
+                    visit(neighborIndex, tentativeGScore, currentIndex);
+                    if (firstVisit) {
+                        hScore[neighborIndex] = heuristic(neighbor, goalX, goalY, bias);
+                    }
+                    openSet.insertOrDecrease(neighborIndex, tentativeGScore + hScore[neighborIndex]);
+                }
+            }
+        }
+
+        // If we get here, none of the goals can be reached
+        return null;
+    }
+
+    // Smallest straight line distance plus bias over all the goals
+    private static double heuristic(Node node, double[] goalX, double[] goalY, double[] bias) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < goalX.length; k++) {
+            best = Math.min(best, Math.hypot(node.x - goalX[k], node.y - goalY[k]) + bias[k]);
+        }
+        return best;
+    }
+
+    private void visit(int index, double g, int parent) {
+        visitedQuery[index] = query;
+        gScore[index] = g;
+        cameFrom[index] = parent;
+    }
+
+    private void nextQuery() {
+        openSet.clear();
+        query++;
+        if (query == Integer.MAX_VALUE) {
+            // Wrapped around, so old tags could collide with new ones
+            Arrays.fill(visitedQuery, 0);
+            Arrays.fill(closedQuery, 0);
+            Arrays.fill(exitQuery, 0);
+            query = 1;
+        }
+    }
+
+    private void ensureCapacity(int nodeCount) {
+        openSet.ensureCapacity(nodeCount);
+        if (nodeCount <= gScore.length) {
+            return;
+        }
+        int newLength = Math.max(nodeCount, gScore.length * 2);
+        gScore = Arrays.copyOf(gScore, newLength);
+        cameFrom = Arrays.copyOf(cameFrom, newLength);
+        visitedQuery = Arrays.copyOf(visitedQuery, newLength);
+        closedQuery = Arrays.copyOf(closedQuery, newLength);
+        hScore = Arrays.copyOf(hScore, newLength);
+        exitCost = Arrays.copyOf(exitCost, newLength);
+        exitQuery = Arrays.copyOf(exitQuery, newLength);
+    }
+
+    // Reconstruct the path from the start node to the goal node
+    private List<Node> reconstructPath(List<Node> nodes, int current) {
+        List<Node> path = new ArrayList<>();
+        while (current >= 0) {
+            path.add(nodes.get(current));
+            current = cameFrom[current];
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Calculate the distance between two nodes
+    private static double distance(Node n1, Node n2) {
+        double dx = n1.x - n2.x;
+        double dy = n1.y - n2.y;
+        return Math.hypot(dx, dy);
+    }
+}
@@ -0,0 +1,188 @@
+package frc.robot.pathfind;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over dense integer ids (node indices) with decrease-key.
+ *
+ * Keys live in a primitive array indexed by id, and every id knows its slot in the heap,
+ * so updating the priority of a node that's already queued is O(log n) instead of a
+ * remove/re-add. All buffers are grown on demand and reused between searches.
+ */
+class IndexedMinHeap {
+    // Heap slot -> id
+    private int[] heap;
+    // Id -> heap slot, -1 if the id isn't queued
+    private int[] position;
+    // Id -> key
+    private double[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Makes sure ids in the range [0, capacity) can be queued. Doesn't shrink.
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity <= position.length) {
+            return;
+        }
+        int oldLength = position.length;
+        int newLength = Math.max(capacity, oldLength * 2);
+        heap = Arrays.copyOf(heap, newLength);
+        keys = Arrays.copyOf(keys, newLength);
+        position = Arrays.copyOf(position, newLength);
+        Arrays.fill(position, oldLength, newLength, -1);
+    }
+
+    /**
+     * Empties the heap. Only touches the ids that are still queued, so it's cheap after a search.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    double peekKey() {
+        return keys[heap[0]];
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Queues the id with the given key, or lowers its key if it's already queued with a larger one.
+     *
+     * @return true if the id was added or its key was lowered
+     */
+    boolean insertOrDecrease(int id, double key) {
+        int slot = position[id];
+        if (slot < 0) {
+            keys[id] = key;
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Queues the id with the given key, or moves it to the new key (up or down) if it's already queued.
+     */
+    void insertOrUpdate(int id, double key) {
+        int slot = position[id];
+        if (slot < 0) {
+            insertOrDecrease(id, key);
+            return;
+        }
+        double oldKey = keys[id];
+        keys[id] = key;
+        if (key < oldKey) {
+            siftUp(slot);
+        } else {
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * Takes the id out of the heap. Nothing happens if it isn't queued.
+     */
+    void remove(int id) {
+        int slot = position[id];
+        if (slot < 0) {
+            return;
+        }
+        position[id] = -1;
+        size--;
+        if (slot < size) {
+            // Fill the hole with the last entry, which could belong above or below it
+            int last = heap[size];
+            heap[slot] = last;
+            position[last] = slot;
+            siftDown(slot);
+            siftUp(position[last]);
+        }
+    }
+
+    /**
+     * Removes and returns the id with the smallest key.
+     */
+    int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        double key = keys[id];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parent = heap[parentSlot];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[slot] = parent;
+            position[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        double key = keys[id];
+        int half = size >>> 1;
+        while (slot < half) {
+            int childSlot = 2 * slot + 1;
+            int child = heap[childSlot];
+            int rightSlot = childSlot + 1;
+            if (rightSlot < size && keys[heap[rightSlot]] < keys[child]) {
+                childSlot = rightSlot;
+                child = heap[childSlot];
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heap[slot] = child;
+            position[child] = slot;
+            slot = childSlot;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+}
@@ -0,0 +1,185 @@
+package frc.robot.pathfind;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Binary file holding a navigation mesh that was built ahead of time.
+ *
+ * Everything is stored as flat little endian arrays, so loading is reading the file and copying
+ * numbers out, no geometry. Layout:
+ * <pre>
+ * int    magic ("NAVM"), int format version
+ * long   fingerprint of whatever the mesh was built from
+ * int    node count n, int adjacency entry count m (2 per edge)
+ * double x[n], y[n], holonomic rotation in radians[n]
+ * int    adjacency start[n + 1], neighbor[m]
+ * double edge cost[m]
+ * </pre>
+ * Neighbors of node i are neighbor[start[i]] until neighbor[start[i + 1]], with matching costs,
+ * so every edge is in there once from each end.
+ */
+public class NavMeshFile {
+    private static final int MAGIC = 0x4E41564D;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4;
+
+    private NavMeshFile() {
+    }
+
+    /**
+     * Writes the mesh. Only nodes that are part of it and edges between them are written.
+     *
+     * @param fingerprint Identifies what the mesh was built from, see {@link #fingerprint}
+     */
+    public static void write(VisGraph navMesh, long fingerprint, Path file) throws IOException {
+        int nodeCount = navMesh.getNodeSize();
+        int[] start = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            start[i + 1] = start[i] + meshNeighborCount(navMesh, navMesh.getNode(i));
+        }
+        int entryCount = start[nodeCount];
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + nodeCount * 3 * 8 + (nodeCount + 1) * 4
+                + entryCount * (4 + 8)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(fingerprint).putInt(nodeCount).putInt(entryCount);
+        for (int i = 0; i < nodeCount; i++) {
+            buffer.putDouble(navMesh.getNode(i).x);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            buffer.putDouble(navMesh.getNode(i).y);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            Rotation2d rotation = navMesh.getNode(i).holonomicRotation;
+            buffer.putDouble(rotation == null ? 0.0 : rotation.getRadians());
+        }
+        for (int i = 0; i <= nodeCount; i++) {
+            buffer.putInt(start[i]);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (Node neighbor : navMesh.getNode(i).neighbors) {
+                if (navMesh.containsNode(neighbor)) {
+                    buffer.putInt(neighbor.index);
+                }
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = navMesh.getNode(i);
+            for (Node neighbor : node.neighbors) {
+                if (navMesh.containsNode(neighbor)) {
+                    buffer.putDouble(Math.hypot(node.x - neighbor.x, node.y - neighbor.y));
+                }
+            }
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Reads the file and builds a mesh from it, without checking any edges against obstacles.
+     * The planner adds start and goal nodes to the mesh it searches, so it gets a regular
+     * VisGraph. The file is read in one go rather than mapped, since every number gets copied
+     * out of it straight away anyway.
+     *
+     * @param expectedFingerprint What the mesh should have been built from
+     * @throws IOException If the file can't be read, isn't a mesh file, or was built from something else
+     */
+    public static VisGraph load(Path file, long expectedFingerprint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " isn't a navigation mesh file");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + " has format version " + buffer.getInt(4) + ", expected " + FORMAT_VERSION);
+        }
+        if (buffer.getLong(8) != expectedFingerprint) {
+            throw new IOException(file + " was built from different obstacles, rebuild it");
+        }
+        int nodeCount = buffer.getInt(16);
+        int entryCount = buffer.getInt(20);
+        long expectedBytes = HEADER_BYTES + nodeCount * 3L * 8 + (nodeCount + 1L) * 4 + entryCount * (4L + 8);
+        if (nodeCount < 0 || entryCount < 0 || buffer.capacity() != expectedBytes) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+
+        int xOffset = HEADER_BYTES;
+        int yOffset = xOffset + nodeCount * 8;
+        int rotationOffset = yOffset + nodeCount * 8;
+        int startOffset = rotationOffset + nodeCount * 8;
+        int neighborOffset = startOffset + (nodeCount + 1) * 4;
+        int costOffset = neighborOffset + entryCount * 4;
+
+        VisGraph navMesh = new VisGraph();
+        for (int i = 0; i < nodeCount; i++) {
+            navMesh.addNode(new Node(buffer.getDouble(xOffset + i * 8), buffer.getDouble(yOffset + i * 8),
+                    new Rotation2d(buffer.getDouble(rotationOffset + i * 8))));
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            int from = buffer.getInt(startOffset + i * 4);
+            int to = buffer.getInt(startOffset + (i + 1) * 4);
+            if (from < 0 || to < from || to > entryCount) {
+                throw new IOException(file + " has a bad adjacency list for node " + i);
+            }
+            for (int k = from; k < to; k++) {
+                int neighbor = buffer.getInt(neighborOffset + k * 4);
+                if (neighbor < 0 || neighbor >= nodeCount) {
+                    throw new IOException(file + " has an edge to node " + neighbor + ", out of range");
+                }
+                // Each edge is stored from both ends, only connect it from the lower one
+                if (neighbor > i) {
+                    navMesh.connect(new Edge(navMesh.getNode(i), navMesh.getNode(neighbor),
+                            buffer.getDouble(costOffset + k * 8)));
+                }
+            }
+        }
+        return navMesh;
+    }
+
+    /**
+     * Hash of everything a mesh is built from, so a file built from old obstacles isn't used.
+     */
+    public static long fingerprint(List<Obstacle> obstacles, double obstacleOffsetDistance, List<Node> presets) {
+        long hash = FORMAT_VERSION;
+        hash = mix(hash, Double.doubleToLongBits(obstacleOffsetDistance));
+        for (Node preset : presets) {
+            hash = mix(hash, Double.doubleToLongBits(preset.x));
+            hash = mix(hash, Double.doubleToLongBits(preset.y));
+            hash = mix(hash, Double.doubleToLongBits(preset.holonomicRotation == null ? 0.0 : preset.holonomicRotation.getRadians()));
+        }
+        for (Obstacle obstacle : obstacles) {
+            PolygonDouble polygon = obstacle.polygon;
+            hash = mix(hash, polygon.npoints);
+            for (int i = 0; i < polygon.npoints; i++) {
+                hash = mix(hash, Double.doubleToLongBits(polygon.xpoints[i]));
+                hash = mix(hash, Double.doubleToLongBits(polygon.ypoints[i]));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash ^= value;
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int meshNeighborCount(VisGraph navMesh, Node node) {
+        int count = 0;
+        for (Node neighbor : node.neighbors) {
+            if (navMesh.containsNode(neighbor)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -9,6 +9,11 @@ public class Node {
     double x, y;
     Rotation2d holonomicRotation;
     List < Node > neighbors;
+    // Position of this node in the VisGraph it was added to, -1 if it hasn't been added
+    int index = -1;
+    // Obstacle polygon this node is a corner of and which corner, null if it isn't one
+    PolygonDouble polygon;
+    int polygonVertex = -1;
   
     public Node(double x, double y) {
         this.x = x;
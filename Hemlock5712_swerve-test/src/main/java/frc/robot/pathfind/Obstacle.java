@@ -1,14 +1,23 @@
 package frc.robot.pathfind;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Translation2d;
-import frc.robot.pathfind.util.Doubles;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
 
 public class Obstacle {
+    // Sines of angles smaller than this count as a straight line
+    private static final double COLLINEAR_EPSILON = 1e-9;
+    private static final int MAX_CACHED_OFFSETS = 4;
+    // Rotation2d.fromDegrees(90), which the sides used to be turned by to get their normals
+    private static final double COS_90 = Math.cos(Math.toRadians(90));
+    private static final double SIN_90 = Math.sin(Math.toRadians(90));
+
     PolygonDouble polygon;
+    // Offset polygons that were already worked out, by distance
+    private final double[] offsetDistances = new double[MAX_CACHED_OFFSETS];
+    private final Obstacle[] offsets = new Obstacle[MAX_CACHED_OFFSETS];
+    private int offsetCount;
 
     public Obstacle(double[] xPoints, double[] yPoints) {
         this.polygon = new PolygonDouble(xPoints, yPoints);
@@ -16,172 +25,353 @@ public class Obstacle {
 
     public void addNodes(VisGraph nodes) {
         for(int i = 0; i < polygon.npoints; i++) {
-            nodes.addNode(new Node(polygon.xpoints[i], polygon.ypoints[i]));
+            Node node = new Node(polygon.xpoints[i], polygon.ypoints[i]);
+            node.polygon = polygon;
+            node.polygonVertex = i;
+            nodes.addNode(node);
         }
     }
 
     /**
      * Creates a polygon that's offset by the distance passed in.
      *
-     * Makes a copy of each point of the polygon, offset by a vector
-     * at 90deg from the angle of the edges, then connects them together.
+     * Every side is moved outwards by the distance, away from the inside of the polygon whichever
+     * way its points wind. For convex shapes (and for shrinking) the gap two moved sides leave at a
+     * corner is closed with a straight line, so the corner is bevelled. Growing a shape with concave
+     * corners instead takes the outline of the shape plus a strip along each side and a cap over each
+     * convex corner, so parts of the shape that end up closer than the distance merge into one.
+     * Those caps are squared off where they touch the circle around the corner rather than bevelled.
      *
-     * Has functionality in place to prevent issues with concave shapes
-     * having overlapping lines and other weirdness.
+     * Results are remembered per distance, so offsetting by the same distance again is free.
+     * The returned obstacle is shared between callers and shouldn't be changed.
      *
-     * @param distance Distance to expand the shape outwards by.
+     * @param distance Distance to expand the shape outwards by. Negative shrinks it.
      * @return New obstacle, which has the distance passed in added to all sides.
      */
     public Obstacle offset(double distance) {
-        // Get a list of all edges with the offsets added onto them
-        List<ObstacleEdge> offsetEdges = new ArrayList<>();
-        for(int i = 0; i < polygon.npoints; i++) {
-            offsetEdges.add(
-                    new ObstacleEdge(
-                    polygon.xpoints[i],
-                    polygon.ypoints[i],
-                    polygon.xpoints[(i + 1) % polygon.npoints],
-                    polygon.ypoints[(i + 1) % polygon.npoints]
-                ).offset(distance)
-            );
-        }
-        List<Double> xPoints = new ArrayList<>();
-        List<Double> yPoints = new ArrayList<>();
-
-        // Loop through all edges, checking if there's an intersection between any of them.
-        // If an intersection does occur, cut the point off at that intersection,
-        // Creating a new point at the intersection, which should be the correct distance away.
-        for(int i = 0; i < offsetEdges.size(); i++) {
-            ObstacleEdge edge = offsetEdges.get(i);
-            // Check against every other edge, including last -> first
-            for(int j = i + 1; j <= offsetEdges.size(); j++) {
-                // Wrap edges back to beginning so the last edge can be checked against the first one
-                ObstacleEdge otherEdge = offsetEdges.get(j % offsetEdges.size());
-                Translation2d intersectionPoint = edge.findIntersectionPoint(otherEdge);
-                if(intersectionPoint == null && !edge.hasBeenPlotted()) {
-                    // If lines don't intersect, and the edge hasn't been plotted out already
-                    if(!edge.hasBeenCleaned()) {
-                        // If edge was cleaned from a previous loop, don't add the first point
-                        xPoints.add( offsetEdges.get(i).point1.getX());
-                        yPoints.add( offsetEdges.get(i).point1.getY());
-                    }
-                    xPoints.add(offsetEdges.get(i).point2.getX());
-                    yPoints.add(offsetEdges.get(i).point2.getY());
-                    edge.setHasBeenPlotted(true);
+        synchronized (this) {
+            for (int i = 0; i < offsetCount; i++) {
+                if (offsetDistances[i] == distance) {
+                    return offsets[i];
                 }
-                else {
-                    // If lines do intersect
-                    if (!edge.hasBeenPlotted()) {
-                        // Don't duplicate points
-                        if (!edge.hasBeenCleaned()) {
-                            // If edge was cleaned from a previous loop, don't add the first point
-                            xPoints.add( offsetEdges.get(i).point1.getX());
-                            yPoints.add( offsetEdges.get(i).point1.getY());
-                        }
-                        xPoints.add( intersectionPoint.getX());
-                        yPoints.add( intersectionPoint.getY());
-                        otherEdge.setHasBeenCleaned(true);
-                        edge.setHasBeenPlotted(true);
-                    }
+            }
+        }
+        Obstacle result = computeOffset(distance);
+        synchronized (this) {
+            if (offsetCount == offsets.length) {
+                // Only a handful of clearances are ever used, drop the oldest after that
+                System.arraycopy(offsetDistances, 1, offsetDistances, 0, offsetCount - 1);
+                System.arraycopy(offsets, 1, offsets, 0, offsetCount - 1);
+                offsetCount--;
+            }
+            offsetDistances[offsetCount] = distance;
+            offsets[offsetCount] = result;
+            offsetCount++;
+        }
+        return result;
+    }
+
+    private Obstacle computeOffset(double distance) {
+        int n = polygon.npoints;
+        double[] xs = polygon.xpoints;
+        double[] ys = polygon.ypoints;
+        if (distance == 0 || n < 3) {
+            return new Obstacle(Arrays.copyOf(xs, n), Arrays.copyOf(ys, n));
+        }
+        // Outwards is to the right of each side for counterclockwise points, left for clockwise
+        double area = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            area += xs[i] * ys[j] - xs[j] * ys[i];
+        }
+        double outward = area > 0 ? -distance : distance;
+
+        // Left normal of every side. Worked out the same way Rotation2d turns a direction by 90deg,
+        // so clockwise convex obstacles come out exactly like they did before this was rewritten.
+        double[] normalX = new double[n];
+        double[] normalY = new double[n];
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            double dx = xs[next] - xs[i];
+            double dy = ys[next] - ys[i];
+            double length = Math.hypot(dx, dy);
+            double cos = length > 1e-6 ? dx / length : 1.0;
+            double sin = length > 1e-6 ? dy / length : 0.0;
+            double turnedX = cos * COS_90 - sin * SIN_90;
+            double turnedY = cos * SIN_90 + sin * COS_90;
+            double turnedLength = Math.hypot(turnedX, turnedY);
+            normalX[i] = turnedX / turnedLength;
+            normalY[i] = turnedY / turnedLength;
+        }
+
+        if (distance > 0 && hasConcaveCorner(xs, ys, n, outward)) {
+            return offsetConcave(Arrays.copyOf(xs, n), Arrays.copyOf(ys, n), outward, normalX, normalY, area);
+        }
+
+        // The outline is a ring of lines, each a moved side or the bevel after it. Every line
+        // has a start point (where the previous line meets it) and a direction.
+        int maxLines = 2 * n;
+        double[] startX = new double[maxLines];
+        double[] startY = new double[maxLines];
+        double[] dirX = new double[maxLines];
+        double[] dirY = new double[maxLines];
+        boolean[] bevel = new boolean[maxLines];
+        int lines = 0;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            int after = (i + 2) % n;
+            double dx = xs[next] - xs[i];
+            double dy = ys[next] - ys[i];
+            double length = Math.hypot(dx, dy);
+            if (length == 0) {
+                continue;
+            }
+            // Left normal scaled by the distance, flipped for counterclockwise polygons
+            double ox = outward * normalX[i];
+            double oy = outward * normalY[i];
+            startX[lines] = xs[i] + ox;
+            startY[lines] = ys[i] + oy;
+            dirX[lines] = dx;
+            dirY[lines] = dy;
+            lines++;
+
+            // Bevel if the next side moves away from this one, leaving a gap at the corner
+            double nextDx = xs[after] - xs[next];
+            double nextDy = ys[after] - ys[next];
+            double nextLength = Math.hypot(nextDx, nextDy);
+            double turn = dx * nextDy - dy * nextDx;
+            if (nextLength > 0 && turn * outward < -COLLINEAR_EPSILON * length * nextLength) {
+                double endX = xs[next] + ox;
+                double endY = ys[next] + oy;
+                double nextStartX = xs[next] + outward * normalX[next];
+                double nextStartY = ys[next] + outward * normalY[next];
+                startX[lines] = endX;
+                startY[lines] = endY;
+                dirX[lines] = nextStartX - endX;
+                dirY[lines] = nextStartY - endY;
+                bevel[lines] = true;
+                lines++;
+            }
+        }
+
+        // Lines that aren't followed by a bevel start where the previous one crosses them
+        int[] prev = new int[lines];
+        int[] nextLine = new int[lines];
+        for (int k = 0; k < lines; k++) {
+            prev[k] = (k + lines - 1) % lines;
+            nextLine[k] = (k + 1) % lines;
+        }
+        for (int k = 0; k < lines; k++) {
+            if (!bevel[k] && !bevel[prev[k]]) {
+                joinToPrevious(k, prev[k], startX, startY, dirX, dirY);
+            }
+        }
+
+        // Drop lines that run backwards and join their neighbours, until none are left
+        int remaining = lines;
+        boolean[] removed = new boolean[lines];
+        boolean changed = true;
+        while (changed && remaining > 3) {
+            changed = false;
+            for (int k = 0; k < lines && remaining > 3; k++) {
+                if (removed[k]) {
+                    continue;
+                }
+                int after = nextLine[k];
+                double runX = startX[after] - startX[k];
+                double runY = startY[after] - startY[k];
+                if (runX * dirX[k] + runY * dirY[k] < 0) {
+                    removed[k] = true;
+                    remaining--;
+                    nextLine[prev[k]] = after;
+                    prev[after] = prev[k];
+                    joinToPrevious(after, prev[after], startX, startY, dirX, dirY);
+                    changed = true;
                 }
             }
         }
-        return new Obstacle(Doubles.toArray(xPoints), Doubles.toArray(yPoints));
+
+        double[] xPoints = new double[remaining];
+        double[] yPoints = new double[remaining];
+        int count = 0;
+        for (int k = 0; k < lines; k++) {
+            if (!removed[k]) {
+                xPoints[count] = startX[k];
+                yPoints[count] = startY[k];
+                count++;
+            }
+        }
+        return new Obstacle(xPoints, yPoints);
     }
 
-    public String toString() {
-        String output = "Polygon(\n";
-        for(int i = 0; i < polygon.npoints; i++) {
-            output += Double.toString(Math.round(polygon.xpoints[i] * 100) / 100.0) + ", ";
-            output += Double.toString(Math.round(polygon.ypoints[i] * 100) / 100.0) + "\n";
+    // True if any corner turns against the way the polygon winds
+    private static boolean hasConcaveCorner(double[] xs, double[] ys, int n, double outward) {
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            int after = (i + 2) % n;
+            double dx = xs[next] - xs[i];
+            double dy = ys[next] - ys[i];
+            double nextDx = xs[after] - xs[next];
+            double nextDy = ys[after] - ys[next];
+            double turn = dx * nextDy - dy * nextDx;
+            if (turn * outward > COLLINEAR_EPSILON * Math.hypot(dx, dy) * Math.hypot(nextDx, nextDy)) {
+                return true;
+            }
         }
-        return output + ")";
+        return false;
     }
 
-    private class ObstacleEdge {
-        private Translation2d point1;
-        private Translation2d point2;
-        private boolean hasBeenCleaned = false;
-        private boolean hasBeenPlotted = false;
-
-        public ObstacleEdge(double x1, double y1, double x2, double y2) {
-            point1 = new Translation2d(x1, y1);
-            point2 = new Translation2d(x2, y2);
-        }
-
-        public ObstacleEdge(Translation2d point1, Translation2d point2) {
-            this.point1 = point1;
-            this.point2 = point2;
-        }
-
-        public ObstacleEdge offset(double distance) {
-            // Calculate angle of edge
-            Rotation2d angle = point2.minus(point1).getAngle();
-            // Calculate perpendicular angle
-            Rotation2d transformAngle = angle.plus(Rotation2d.fromDegrees(90));
-            // Create offset vector using distance and angles
-            Translation2d offset = new Translation2d(distance, 0).rotateBy(transformAngle);
-            // Add offset to points
-            return new ObstacleEdge(
-                    point1.plus(offset),
-                    point2.plus(offset)
-            );
-        }
-
-        /**
-         * This is heavily based on an algorithm in the
-         * "Tricks of the Windows Game Programming Gurus" book by Andre LeMothe
-         *
-         * @param other
-         * @return
-         */
-        public Translation2d findIntersectionPoint(ObstacleEdge other) {
-            // Calculate x distance of line 1
-            double s1_x = this.point2.getX() - this.point1.getX();
-            // Calculate x distance of line 2
-            double s2_x = other.point2.getX() - other.point1.getX();
-            // Calculate y distance of line 1
-            double s1_y = this.point2.getY() - this.point1.getY();
-            // Calculate y distance of line 2
-            double s2_y = other.point2.getY() - other.point1.getY();
-
-            double s, t;
-            // Denominator portion of below equations, split into variable because it's the same between the two
-            double d = -s2_x * s1_y + s1_x * s2_y;
-
-            // Magical math that I need to look into how it works more
-            s = (-s1_y * (this.point1.getX() - other.point1.getX()) + s1_x * (this.point1.getY() - other.point1.getY())) / d;
-            t = ( s2_x * (this.point1.getY() - other.point1.getY()) - s2_y * (this.point1.getX() - other.point1.getX())) / d;
-
-            double i_x, i_y;
-            if(s >= 0 && s <= 1 && t >= 0 && t <= 1) {
-                // Intersection found
-                i_x = this.point1.getX() + (t * s1_x);
-                i_y = this.point1.getY() + (t * s1_y);
-                return new Translation2d(i_x, i_y);
+    /**
+     * Grows a polygon with concave corners. Moving the sides out and cutting them where they cross
+     * isn't enough here, since the moved sides of two different parts of the shape can cross each
+     * other, which leaves corners closer than the distance. So instead this takes the outline of
+     * everything within reach: the polygon, a strip the width of the distance along the outside of
+     * each side, and a cap over each convex corner. Caps are squared off where they touch the circle
+     * around the corner, rather than bevelled, so no point of the outline ends up closer than the
+     * distance. Holes left where a narrow gap closes up are filled in.
+     */
+    private static Obstacle offsetConcave(double[] xs, double[] ys, double outward, double[] normalX, double[] normalY, double signedArea) {
+        int n = xs.length;
+        Area grown = new Area(ring(xs, ys));
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            int after = (i + 2) % n;
+            double ox = outward * normalX[i];
+            double oy = outward * normalY[i];
+            grown.add(new Area(ring(
+                new double[] {xs[i], xs[next], xs[next] + ox, xs[i] + ox},
+                new double[] {ys[i], ys[next], ys[next] + oy, ys[i] + oy})));
+
+            double dx = xs[next] - xs[i];
+            double dy = ys[next] - ys[i];
+            double nextDx = xs[after] - xs[next];
+            double nextDy = ys[after] - ys[next];
+            double length = Math.hypot(dx, dy);
+            double nextLength = Math.hypot(nextDx, nextDy);
+            double turn = dx * nextDy - dy * nextDx;
+            if (length == 0 || nextLength == 0 || turn * outward >= 0) {
+                continue;
             }
-            return null;
+            // Both moved sides carry on until they meet the line touching the circle halfway round
+            double angle = Math.atan2(Math.abs(turn), dx * nextDx + dy * nextDy);
+            double reach = Math.abs(outward) * Math.tan(angle / 4);
+            double aX = xs[next] + ox;
+            double aY = ys[next] + oy;
+            double bX = xs[next] + outward * normalX[next];
+            double bY = ys[next] + outward * normalY[next];
+            grown.add(new Area(ring(
+                new double[] {xs[next], aX, aX + dx / length * reach, bX - nextDx / nextLength * reach, bX},
+                new double[] {ys[next], aY, aY + dy / length * reach, bY - nextDy / nextLength * reach, bY})));
+        }
 
+        // Keep the biggest loop, anything else is a hole
+        double[] bestX = new double[0];
+        double[] bestY = new double[0];
+        double bestArea = 0;
+        double[] loopX = new double[8];
+        double[] loopY = new double[8];
+        int loopSize = 0;
+        double[] coords = new double[6];
+        for (PathIterator it = grown.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO) {
+                loopSize = 0;
+            }
+            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+                if (loopSize == loopX.length) {
+                    loopX = Arrays.copyOf(loopX, loopSize * 2);
+                    loopY = Arrays.copyOf(loopY, loopSize * 2);
+                }
+                loopX[loopSize] = coords[0];
+                loopY[loopSize] = coords[1];
+                loopSize++;
+            } else if (type == PathIterator.SEG_CLOSE) {
+                double loopArea = 0;
+                for (int i = 0; i < loopSize; i++) {
+                    int j = (i + 1) % loopSize;
+                    loopArea += loopX[i] * loopY[j] - loopX[j] * loopY[i];
+                }
+                if (Math.abs(loopArea) > Math.abs(bestArea)) {
+                    bestArea = loopArea;
+                    bestX = Arrays.copyOf(loopX, loopSize);
+                    bestY = Arrays.copyOf(loopY, loopSize);
+                }
+            }
         }
 
-        public String toString() {
-            return point1.toString() + "," + point2.toString();
+        // Area leaves rounding crumbs where strips lie along the original sides: points a hair apart,
+        // and cracks that run in and straight back out. Drop those, and the straight-through points
+        // left where a strip meets the cap next to it.
+        int count = bestX.length;
+        double[] xPoints = bestX;
+        double[] yPoints = bestY;
+        boolean changed = true;
+        while (changed && count > 3) {
+            changed = false;
+            for (int i = 0; i < count && count > 3; i++) {
+                int prev = (i + count - 1) % count;
+                int next = (i + 1) % count;
+                double inX = xPoints[i] - xPoints[prev];
+                double inY = yPoints[i] - yPoints[prev];
+                double outX = xPoints[next] - xPoints[i];
+                double outY = yPoints[next] - yPoints[i];
+                double inLength = Math.hypot(inX, inY);
+                double outLength = Math.hypot(outX, outY);
+                double turn = inX * outY - inY * outX;
+                if (outLength < 1e-9 || Math.abs(turn) <= COLLINEAR_EPSILON * inLength * outLength) {
+                    System.arraycopy(xPoints, i + 1, xPoints, i, count - i - 1);
+                    System.arraycopy(yPoints, i + 1, yPoints, i, count - i - 1);
+                    count--;
+                    i--;
+                    changed = true;
+                }
+            }
+        }
+        xPoints = Arrays.copyOf(xPoints, count);
+        yPoints = Arrays.copyOf(yPoints, count);
+        if ((bestArea > 0) != (signedArea > 0)) {
+            reverse(xPoints);
+            reverse(yPoints);
         }
+        return new Obstacle(xPoints, yPoints);
+    }
 
-        public boolean hasBeenCleaned() {
-            return hasBeenCleaned;
+    private static Path2D.Double ring(double[] xs, double[] ys) {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, xs.length);
+        path.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < xs.length; i++) {
+            path.lineTo(xs[i], ys[i]);
         }
+        path.closePath();
+        return path;
+    }
 
-        public void setHasBeenCleaned(boolean hasBeenCleaned) {
-            this.hasBeenCleaned = hasBeenCleaned;
+    private static void reverse(double[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
         }
+    }
 
-        public boolean hasBeenPlotted() {
-            return hasBeenPlotted;
+    // Moves the start of line k to where line p crosses it
+    private static void joinToPrevious(int k, int p, double[] startX, double[] startY, double[] dirX, double[] dirY) {
+        double cross = dirX[p] * dirY[k] - dirY[p] * dirX[k];
+        if (Math.abs(cross) <= COLLINEAR_EPSILON * Math.hypot(dirX[p], dirY[p]) * Math.hypot(dirX[k], dirY[k])) {
+            // Parallel, the lines already meet end to start
+            return;
         }
+        double t = ((startX[k] - startX[p]) * dirY[k] - (startY[k] - startY[p]) * dirX[k]) / cross;
+        startX[k] = startX[p] + t * dirX[p];
+        startY[k] = startY[p] + t * dirY[p];
+    }
 
-        public void setHasBeenPlotted(boolean hasBeenPlotted) {
-            this.hasBeenPlotted = hasBeenPlotted;
+    public String toString() {
+        String output = "Polygon(\n";
+        for(int i = 0; i < polygon.npoints; i++) {
+            output += Double.toString(Math.round(polygon.xpoints[i] * 100) / 100.0) + ", ";
+            output += Double.toString(Math.round(polygon.ypoints[i] * 100) / 100.0) + "\n";
         }
+        return output + ")";
     }
 }
@@ -0,0 +1,415 @@
+package frc.robot.pathfind;
+
+import java.awt.geom.Line2D;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over the sides of a set of obstacles, used to check if an edge is blocked
+ * without testing it against every side of every obstacle.
+ *
+ * Each side is stored in every grid cell it passes through. A query walks the cells under
+ * the edge row by row, skips sides whose polygon's bounding box doesn't overlap the edge's,
+ * and only runs the exact intersection test on what's left. Sides are kept in flat arrays
+ * (CSR style, one offset per cell) so nothing is allocated per query. The only thing a query
+ * writes to is the {@link Scratch} that {@link #crossesInterior} works in, so the index can be
+ * shared between threads as long as each thread brings its own scratch to that check.
+ *
+ * By default an edge is blocked if it so much as touches an obstacle, which is how edges
+ * between offset corners are checked against the original obstacles. An index built with
+ * touching allowed only blocks edges that go through an obstacle, for when the nodes are the
+ * corners of the indexed obstacles themselves.
+ *
+ * The index is a snapshot, build a new one if the obstacles change.
+ */
+public class ObstacleIndex {
+    // Padding so points sitting exactly on a cell border land in both cells
+    private static final double CELL_EPSILON = 1e-9;
+    private static final int MAX_CELLS_PER_AXIS = 256;
+
+    // What the index was built from, copied so obstacles added to the caller's list later don't
+    // look like they're indexed
+    private final Obstacle[] obstacles;
+    private final boolean touchingAllowed;
+
+    // Bounding box of each polygon
+    private final double[] polyMinX, polyMinY, polyMaxX, polyMaxY;
+
+    // Every side of every polygon, and which polygon it belongs to
+    private final double[] segX1, segY1, segX2, segY2;
+    private final int[] segPolygon;
+    // Sides of polygon p are firstSegment[p] until firstSegment[p + 1]
+    private final int[] firstSegment;
+
+    // Grid layout
+    private final double originX, originY, cellSize;
+    private final int columns, rows;
+    // Sides in cell c are cellSegments[cellStart[c]] until cellSegments[cellStart[c + 1]]
+    private final int[] cellStart;
+    private final int[] cellSegments;
+
+    // For queries that don't bring their own scratch, so those stick to one thread at a time
+    private final Scratch scratch = new Scratch();
+
+    /**
+     * Working space for {@link #crossesInterior}, kept between queries so they don't allocate.
+     * Threads checking against the same index at the same time each need their own.
+     */
+    public static final class Scratch {
+        // Fractions along the line where it touches an obstacle, grown as needed
+        private double[] touches = new double[8];
+    }
+
+    public ObstacleIndex(List<Obstacle> obstacles) {
+        this(obstacles, false);
+    }
+
+    public ObstacleIndex(List<Obstacle> obstacles, boolean touchingAllowed) {
+        this.obstacles = obstacles.toArray(new Obstacle[0]);
+        this.touchingAllowed = touchingAllowed;
+        int polygonCount = obstacles.size();
+        polyMinX = new double[polygonCount];
+        polyMinY = new double[polygonCount];
+        polyMaxX = new double[polygonCount];
+        polyMaxY = new double[polygonCount];
+
+        int segmentCount = 0;
+        for (Obstacle obstacle : obstacles) {
+            segmentCount += obstacle.polygon.npoints;
+        }
+        segX1 = new double[segmentCount];
+        segY1 = new double[segmentCount];
+        segX2 = new double[segmentCount];
+        segY2 = new double[segmentCount];
+        segPolygon = new int[segmentCount];
+        firstSegment = new int[polygonCount + 1];
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        int segment = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            PolygonDouble polygon = obstacles.get(p).polygon;
+            firstSegment[p] = segment;
+            double pMinX = Double.POSITIVE_INFINITY, pMinY = Double.POSITIVE_INFINITY;
+            double pMaxX = Double.NEGATIVE_INFINITY, pMaxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < polygon.npoints; i++) {
+                int j = (i + 1) % polygon.npoints;
+                segX1[segment] = polygon.xpoints[i];
+                segY1[segment] = polygon.ypoints[i];
+                segX2[segment] = polygon.xpoints[j];
+                segY2[segment] = polygon.ypoints[j];
+                segPolygon[segment] = p;
+                segment++;
+                pMinX = Math.min(pMinX, polygon.xpoints[i]);
+                pMinY = Math.min(pMinY, polygon.ypoints[i]);
+                pMaxX = Math.max(pMaxX, polygon.xpoints[i]);
+                pMaxY = Math.max(pMaxY, polygon.ypoints[i]);
+            }
+            firstSegment[p + 1] = segment;
+            polyMinX[p] = pMinX;
+            polyMinY[p] = pMinY;
+            polyMaxX[p] = pMaxX;
+            polyMaxY[p] = pMaxY;
+            minX = Math.min(minX, pMinX);
+            minY = Math.min(minY, pMinY);
+            maxX = Math.max(maxX, pMaxX);
+            maxY = Math.max(maxY, pMaxY);
+        }
+
+        if (segmentCount == 0) {
+            originX = 0;
+            originY = 0;
+            cellSize = 1;
+            columns = 1;
+            rows = 1;
+            cellStart = new int[2];
+            cellSegments = new int[0];
+            return;
+        }
+
+        // Aim for about one side per cell
+        double width = Math.max(maxX - minX, CELL_EPSILON);
+        double height = Math.max(maxY - minY, CELL_EPSILON);
+        double size = Math.sqrt(width * height / segmentCount);
+        size = Math.max(size, Math.max(width, height) / MAX_CELLS_PER_AXIS);
+        originX = minX;
+        originY = minY;
+        cellSize = size;
+        columns = Math.min(MAX_CELLS_PER_AXIS, (int) (width / size) + 1);
+        rows = Math.min(MAX_CELLS_PER_AXIS, (int) (height / size) + 1);
+
+        // Count sides per cell, turn the counts into offsets, then fill
+        int[] counts = new int[columns * rows + 1];
+        for (int s = 0; s < segmentCount; s++) {
+            forEachCell(segX1[s], segY1[s], segX2[s], segY2[s], counts, -1, null);
+        }
+        cellStart = new int[columns * rows + 1];
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] = cellStart[c] + counts[c];
+        }
+        cellSegments = new int[cellStart[columns * rows]];
+        int[] fill = new int[columns * rows];
+        System.arraycopy(cellStart, 0, fill, 0, fill.length);
+        for (int s = 0; s < segmentCount; s++) {
+            forEachCell(segX1[s], segY1[s], segX2[s], segY2[s], fill, s, cellSegments);
+        }
+    }
+
+    /**
+     * Whether this index was built from exactly these obstacles, with the default rule.
+     */
+    public boolean isFor(List<Obstacle> obstacles) {
+        if (touchingAllowed) {
+            return false;
+        }
+        if (obstacles.size() != this.obstacles.length) {
+            return false;
+        }
+        for (int i = 0; i < this.obstacles.length; i++) {
+            if (obstacles.get(i) != this.obstacles[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an edge between two points is blocked, using whichever rule this index was built with.
+     * With touching allowed this goes through {@link #crossesInterior}, so one thread at a time.
+     */
+    public boolean blocks(double x1, double y1, double x2, double y2) {
+        return blocks(x1, y1, x2, y2, scratch);
+    }
+
+    /**
+     * Same as {@link #blocks(double, double, double, double)}, working in the caller's scratch so
+     * several threads can check against the index at once.
+     */
+    public boolean blocks(double x1, double y1, double x2, double y2, Scratch scratch) {
+        return touchingAllowed ? crossesInterior(x1, y1, x2, y2, scratch) : intersects(x1, y1, x2, y2);
+    }
+
+    /**
+     * Checks if the line between two points crosses or touches any side of any obstacle.
+     */
+    public boolean intersects(double x1, double y1, double x2, double y2) {
+        double minX = Math.min(x1, x2);
+        double minY = Math.min(y1, y2);
+        double maxX = Math.max(x1, x2);
+        double maxY = Math.max(y1, y2);
+        if (maxX < originX || maxY < originY
+                || minX > originX + columns * cellSize || minY > originY + rows * cellSize) {
+            // Nowhere near any obstacle
+            return false;
+        }
+
+        int rowLo = clampRow(minY - CELL_EPSILON);
+        int rowHi = clampRow(maxY + CELL_EPSILON);
+        for (int row = rowLo; row <= rowHi; row++) {
+            long columnRange = columnRange(x1, y1, x2, y2, row);
+            int colLo = (int) (columnRange >> 32);
+            int colHi = (int) columnRange;
+            for (int col = colLo; col <= colHi; col++) {
+                int cell = row * columns + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int s = cellSegments[k];
+                    int p = segPolygon[s];
+                    // Cheap rejection on the whole polygon before the exact test
+                    if (maxX < polyMinX[p] || minX > polyMaxX[p] || maxY < polyMinY[p] || minY > polyMaxY[p]) {
+                        continue;
+                    }
+                    if (Line2D.linesIntersect(segX1[s], segY1[s], segX2[s], segY2[s], x1, y1, x2, y2)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the line between two points goes through the inside of any obstacle.
+     *
+     * Unlike {@link #intersects}, touching an obstacle doesn't count: the line can start or end
+     * on a corner, pass through a corner, or run along a side. That's what's needed when the
+     * nodes are the corners of the obstacles themselves.
+     *
+     * Uses the index's own scratch, so only call this from one thread at a time.
+     */
+    public boolean crossesInterior(double x1, double y1, double x2, double y2) {
+        return crossesInterior(x1, y1, x2, y2, scratch);
+    }
+
+    /**
+     * Same as {@link #crossesInterior(double, double, double, double)}, working in the caller's
+     * scratch so several threads can check against the index at once.
+     */
+    public boolean crossesInterior(double x1, double y1, double x2, double y2, Scratch scratch) {
+        double minX = Math.min(x1, x2);
+        double minY = Math.min(y1, y2);
+        double maxX = Math.max(x1, x2);
+        double maxY = Math.max(y1, y2);
+        if (maxX < originX || maxY < originY
+                || minX > originX + columns * cellSize || minY > originY + rows * cellSize) {
+            return false;
+        }
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+
+        // Fractions along the line where it touches an obstacle without crossing a side.
+        // The line can only get inside an obstacle at one of these.
+        double[] touches = scratch.touches;
+        int touchCount = 0;
+
+        int rowLo = clampRow(minY - CELL_EPSILON);
+        int rowHi = clampRow(maxY + CELL_EPSILON);
+        for (int row = rowLo; row <= rowHi; row++) {
+            long columnRange = columnRange(x1, y1, x2, y2, row);
+            int colLo = (int) (columnRange >> 32);
+            int colHi = (int) columnRange;
+            for (int col = colLo; col <= colHi; col++) {
+                int cell = row * columns + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int s = cellSegments[k];
+                    int p = segPolygon[s];
+                    if (maxX < polyMinX[p] || minX > polyMaxX[p] || maxY < polyMinY[p] || minY > polyMaxY[p]) {
+                        continue;
+                    }
+                    int o1 = orientation(x1, y1, x2, y2, segX1[s], segY1[s]);
+                    int o2 = orientation(x1, y1, x2, y2, segX2[s], segY2[s]);
+                    int o3 = orientation(segX1[s], segY1[s], segX2[s], segY2[s], x1, y1);
+                    int o4 = orientation(segX1[s], segY1[s], segX2[s], segY2[s], x2, y2);
+                    if (o1 * o2 < 0 && o3 * o4 < 0) {
+                        // Crosses a side outright
+                        return true;
+                    }
+                    if (lengthSquared == 0) {
+                        continue;
+                    }
+                    // Remember where the side's corners sit on the line
+                    if (o1 == 0) {
+                        double t = ((segX1[s] - x1) * dx + (segY1[s] - y1) * dy) / lengthSquared;
+                        if (t > 0 && t < 1) {
+                            if (touchCount == touches.length) {
+                                touches = scratch.touches = Arrays.copyOf(touches, touchCount * 2);
+                            }
+                            touches[touchCount++] = t;
+                        }
+                    }
+                    if (o2 == 0) {
+                        double t = ((segX2[s] - x1) * dx + (segY2[s] - y1) * dy) / lengthSquared;
+                        if (t > 0 && t < 1) {
+                            if (touchCount == touches.length) {
+                                touches = scratch.touches = Arrays.copyOf(touches, touchCount * 2);
+                            }
+                            touches[touchCount++] = t;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Between two touch points the line is either entirely inside an obstacle or entirely
+        // outside, so check the middle of each piece
+        Arrays.sort(touches, 0, touchCount);
+        double previous = 0;
+        for (int i = 0; i <= touchCount; i++) {
+            double next = i < touchCount ? touches[i] : 1;
+            if (next - previous > CELL_EPSILON) {
+                double t = (previous + next) / 2;
+                if (strictlyInside(x1 + t * dx, y1 + t * dy)) {
+                    return true;
+                }
+            }
+            previous = next;
+        }
+        return false;
+    }
+
+    // Inside some obstacle and not on its boundary
+    private boolean strictlyInside(double x, double y) {
+        for (int p = 0; p < polyMinX.length; p++) {
+            if (x <= polyMinX[p] || x >= polyMaxX[p] || y <= polyMinY[p] || y >= polyMaxY[p]) {
+                continue;
+            }
+            boolean inside = false;
+            boolean onBoundary = false;
+            for (int s = firstSegment[p]; s < firstSegment[p + 1] && !onBoundary; s++) {
+                double ax = segX1[s], ay = segY1[s], bx = segX2[s], by = segY2[s];
+                if (orientation(ax, ay, bx, by, x, y) == 0
+                        && x >= Math.min(ax, bx) - CELL_EPSILON && x <= Math.max(ax, bx) + CELL_EPSILON
+                        && y >= Math.min(ay, by) - CELL_EPSILON && y <= Math.max(ay, by) + CELL_EPSILON) {
+                    onBoundary = true;
+                } else if ((ay > y) != (by > y) && x < ax + (y - ay) * (bx - ax) / (by - ay)) {
+                    inside = !inside;
+                }
+            }
+            if (inside && !onBoundary) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Which side of the line a-b the point is on, 0 if it's on the line
+    private static int orientation(double ax, double ay, double bx, double by, double px, double py) {
+        double cross = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+        if (Math.abs(cross) < CELL_EPSILON) {
+            return 0;
+        }
+        return cross > 0 ? 1 : -1;
+    }
+
+    // Either counts the cells a side covers, or writes the side into them
+    private void forEachCell(double x1, double y1, double x2, double y2, int[] cursor, int segment, int[] out) {
+        int rowLo = clampRow(Math.min(y1, y2) - CELL_EPSILON);
+        int rowHi = clampRow(Math.max(y1, y2) + CELL_EPSILON);
+        for (int row = rowLo; row <= rowHi; row++) {
+            long columnRange = columnRange(x1, y1, x2, y2, row);
+            int colLo = (int) (columnRange >> 32);
+            int colHi = (int) columnRange;
+            for (int col = colLo; col <= colHi; col++) {
+                int cell = row * columns + col;
+                if (out == null) {
+                    cursor[cell]++;
+                } else {
+                    out[cursor[cell]++] = segment;
+                }
+            }
+        }
+    }
+
+    // Columns the line covers within a row, packed as (lo << 32 | hi) to avoid allocating
+    private long columnRange(double x1, double y1, double x2, double y2, int row) {
+        double rowMinY = originY + row * cellSize - CELL_EPSILON;
+        double rowMaxY = originY + (row + 1) * cellSize + CELL_EPSILON;
+        double lineMinX, lineMaxX;
+        if (y1 == y2) {
+            lineMinX = Math.min(x1, x2);
+            lineMaxX = Math.max(x1, x2);
+        } else {
+            // Clip the line to the row, then see where it enters and leaves
+            double ya = Math.max(Math.min(y1, y2), rowMinY);
+            double yb = Math.min(Math.max(y1, y2), rowMaxY);
+            double slope = (x2 - x1) / (y2 - y1);
+            double xa = x1 + (ya - y1) * slope;
+            double xb = x1 + (yb - y1) * slope;
+            lineMinX = Math.min(xa, xb);
+            lineMaxX = Math.max(xa, xb);
+        }
+        int colLo = clampColumn(lineMinX - CELL_EPSILON);
+        int colHi = clampColumn(lineMaxX + CELL_EPSILON);
+        return ((long) colLo << 32) | (colHi & 0xFFFFFFFFL);
+    }
+
+    private int clampRow(double y) {
+        double row = Math.floor((y - originY) / cellSize);
+        return (int) Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private int clampColumn(double x) {
+        double column = Math.floor((x - originX) / cellSize);
+        return (int) Math.max(0, Math.min(columns - 1, column));
+    }
+}
@@ -0,0 +1,104 @@
+package frc.robot.pathfind;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs the O(V^2) "can these two nodes see each other" tests for a mesh build on a fork/join pool.
+ *
+ * The rows of the pair triangle (node i against every node j > i) are split between workers
+ * by the number of pairs, not the number of rows, since early rows are much longer. Every
+ * worker gets its own test to run, so tests can keep scratch space without locking, and returns
+ * the pairs it accepted in (i, j) order. Results are concatenated left to right, so the edges come out in
+ * exactly the same order as a single threaded build and can be added to the mesh as is.
+ */
+class ParallelEdgeBuilder {
+    // Below this many pairs a task just does the work instead of splitting again
+    private static final long PAIRS_PER_TASK = 2048;
+
+    /**
+     * Test for whether nodes i and j get an edge. Each worker uses its own, one thread at a time.
+     */
+    interface PairTest {
+        boolean connects(int i, int j);
+    }
+
+    /**
+     * Finds every pair i < j that passes the test.
+     *
+     * @param tests Makes the test for each worker, called once per chunk of rows
+     * @return Accepted pairs packed as (i << 32 | j), in the order a nested i, j loop would find them
+     */
+    static long[] findPairs(int nodeCount, Supplier<PairTest> tests, ForkJoinPool pool) {
+        return pool.invoke(new RowsTask(nodeCount, 0, nodeCount, tests));
+    }
+
+    static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int second(long pair) {
+        return (int) pair;
+    }
+
+    private static class RowsTask extends RecursiveTask<long[]> {
+        private final int nodeCount;
+        private final int rowStart, rowEnd;
+        private final Supplier<PairTest> tests;
+
+        RowsTask(int nodeCount, int rowStart, int rowEnd, Supplier<PairTest> tests) {
+            this.nodeCount = nodeCount;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.tests = tests;
+        }
+
+        @Override
+        protected long[] compute() {
+            long pairs = pairsBetween(rowStart, rowEnd);
+            if (pairs <= PAIRS_PER_TASK || rowEnd - rowStart < 2) {
+                return computeDirectly();
+            }
+            // Split where half the pairs are on each side
+            int split = rowStart + 1;
+            long half = pairs / 2;
+            while (split < rowEnd - 1 && pairsBetween(rowStart, split) < half) {
+                split++;
+            }
+            RowsTask left = new RowsTask(nodeCount, rowStart, split, tests);
+            RowsTask right = new RowsTask(nodeCount, split, rowEnd, tests);
+            left.fork();
+            long[] rightPairs = right.compute();
+            long[] leftPairs = left.join();
+
+            long[] merged = Arrays.copyOf(leftPairs, leftPairs.length + rightPairs.length);
+            System.arraycopy(rightPairs, 0, merged, leftPairs.length, rightPairs.length);
+            return merged;
+        }
+
+        private long[] computeDirectly() {
+            PairTest test = tests.get();
+            long[] found = new long[16];
+            int count = 0;
+            for (int i = rowStart; i < rowEnd; i++) {
+                for (int j = i + 1; j < nodeCount; j++) {
+                    if (test.connects(i, j)) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = ((long) i << 32) | j;
+                    }
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        // Number of (i, j > i) pairs in rows [from, to)
+        private long pairsBetween(int from, int to) {
+            long rows = to - from;
+            return rows * (nodeCount - 1) - rows * (from + to - 1) / 2;
+        }
+    }
+}
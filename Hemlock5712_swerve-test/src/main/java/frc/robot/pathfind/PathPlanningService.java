@@ -0,0 +1,152 @@
+package frc.robot.pathfind;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plans paths on a background thread so the robot loop never runs a search or generates a spline.
+ *
+ * A request takes the start point, goal, and a generator that turns the node path into whatever
+ * trajectory type the caller follows, and hands back a future for it. Requests run one at a time on
+ * a single thread, which also makes that thread the only one touching the navigation mesh.
+ * Once a pathfinder is handed to the service, don't use it or its mesh from anywhere else.
+ *
+ * Dynamic obstacles, like robots seen by vision, are added and removed through the service too.
+ * The change is queued behind whatever is already waiting, so requests made after it see it.
+ * While there are any, requests are planned around them, and the goal has to be a node of the mesh.
+ *
+ * Only the newest request matters. Making a new request cancels the one before it, and a request
+ * that's already running gives up at the next step if something newer came in.
+ */
+public class PathPlanningService {
+    /**
+     * Turns a path through the navigation mesh into a trajectory. Runs on the planning thread.
+     */
+    public interface TrajectoryGenerator<T> {
+        /**
+         * @param path Nodes from the start point to the goal
+         * @param startVelocity Speed the robot was moving at when the plan was requested, in m/s
+         */
+        T generate(List<Node> path, double startVelocity);
+    }
+
+    private final Pathfinder pathfinder;
+    // Bumped whenever the obstacles are replaced, so cached trajectories get thrown out.
+    // Only touched on the planning thread, like the pathfinder.
+    private long obstacleVersion = 0;
+    private final ExecutorService executor;
+    private final AtomicLong latestRequest = new AtomicLong();
+    private CompletableFuture<?> pending;
+
+    public PathPlanningService(Pathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PathPlanningService");
+            thread.setDaemon(true);
+            // Below the robot loop, it's fine for planning to wait
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a plan from the start point to the goal, cancelling any plan that hasn't finished yet.
+     *
+     * @return Future that completes with the trajectory, with null if there's no path, or
+     *         is cancelled if a newer request replaces it
+     */
+    public <T> CompletableFuture<T> request(Node start, Node goal, double startVelocity,
+            TrajectoryGenerator<T> generator) {
+        return request(start, goal, startVelocity, generator, null);
+    }
+
+    /**
+     * Same as {@link #request(Node, Node, double, TrajectoryGenerator)}, but reuses a trajectory
+     * from the cache if one was planned from about the same spot, and adds new ones to it.
+     *
+     * @param cache Cache to check first, or null to always plan
+     */
+    public synchronized <T> CompletableFuture<T> request(Node start, Node goal, double startVelocity,
+            TrajectoryGenerator<T> generator, TrajectoryCache<T> cache) {
+        long id = latestRequest.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        CompletableFuture<T> plan = CompletableFuture.supplyAsync(() -> {
+            checkCurrent(id);
+            // Read the versions here, the mesh is only safe to look at from this thread
+            long meshVersion = pathfinder.getNavMesh().getVersion();
+            long dynamicVersion = pathfinder.getDynamicObstacleVersion();
+            if (cache != null) {
+                T cached = cache.get(start, goal, startVelocity, meshVersion, obstacleVersion, dynamicVersion);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            List<Node> path = pathfinder.hasDynamicObstacles()
+                ? pathfinder.findPathAroundDynamicObstacles(start, goal)
+                : pathfinder.findPath(start, goal);
+            if (path == null) {
+                return null;
+            }
+            checkCurrent(id);
+            T trajectory = generator.generate(path, startVelocity);
+            if (cache != null && trajectory != null) {
+                cache.put(start, goal, startVelocity, meshVersion, obstacleVersion, dynamicVersion, trajectory);
+            }
+            return trajectory;
+        }, executor);
+        pending = plan;
+        return plan;
+    }
+
+    /**
+     * Replaces the obstacles start points are checked against. Takes effect from the next request
+     * and throws away every cached trajectory.
+     */
+    public void setObstacles(List<Obstacle> obstacles) {
+        executor.execute(() -> {
+            pathfinder.setObstacles(obstacles);
+            obstacleVersion++;
+        });
+    }
+
+    /**
+     * Adds an obstacle that moves, see {@link Pathfinder#addDynamicObstacle(Obstacle)}. Takes effect
+     * from the next request and throws away every cached trajectory.
+     *
+     * @return Handle to pass to {@link #removeDynamicObstacle(DynamicObstacle)}
+     */
+    public DynamicObstacle addDynamicObstacle(Obstacle obstacle) {
+        // Offsetting doesn't touch the pathfinder, so do it here and only queue the insert
+        DynamicObstacle dynamicObstacle = new DynamicObstacle(obstacle, pathfinder.obstacleOffsetDistance);
+        executor.execute(() -> pathfinder.addDynamicObstacle(dynamicObstacle));
+        return dynamicObstacle;
+    }
+
+    public void removeDynamicObstacle(DynamicObstacle obstacle) {
+        executor.execute(() -> pathfinder.removeDynamicObstacle(obstacle));
+    }
+
+    /**
+     * Cancels whatever is queued or running. Nothing happens if there's no request.
+     */
+    public synchronized void cancel() {
+        latestRequest.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    // Stop working on a request as soon as a newer one comes in
+    private void checkCurrent(long id) {
+        if (latestRequest.get() != id) {
+            throw new CancellationException("Replaced by a newer path request");
+        }
+    }
+}
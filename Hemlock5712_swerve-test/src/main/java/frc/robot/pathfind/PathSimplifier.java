@@ -0,0 +1,100 @@
+package frc.robot.pathfind;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts a path down to as few waypoints as it can while staying clear of the inflated obstacles.
+ *
+ * Every waypoint handed to trajectory generation makes the spline slower to generate and usually
+ * slower to drive, so before that the path is string pulled: from each waypoint it jumps straight
+ * to the furthest later waypoint it can see, then points that are nearly on the line between their
+ * neighbours are dropped. A shortcut is only used if it doesn't go through an inflated obstacle
+ * (running along one is fine), and a dropped point is never more than a centimeter off the new line,
+ * so the result is as safe as the path it came from, and by the triangle inequality never longer.
+ * The first and last nodes are always kept as is, so their holonomic rotations still get used.
+ *
+ * Only reads the obstacles, and each call brings its own scratch for the obstacle checks, so one
+ * instance can be shared between threads.
+ */
+public class PathSimplifier {
+    // Points closer than this to the line between their neighbours get dropped, in meters
+    private static final double COLLINEAR_TOLERANCE = 0.01;
+
+    private final ObstacleIndex inflatedObstacles;
+
+    /**
+     * @param obstacles Obstacles as they are on the field
+     * @param obstacleOffsetDistance Clearance to keep from them, same as the mesh was built with
+     */
+    public PathSimplifier(List<Obstacle> obstacles, double obstacleOffsetDistance) {
+        this(new ObstacleIndex(obstacles.stream().map(o -> o.offset(obstacleOffsetDistance)).toList(), true));
+    }
+
+    /**
+     * @param inflatedObstacles Index over obstacles that are already offset
+     */
+    public PathSimplifier(ObstacleIndex inflatedObstacles) {
+        this.inflatedObstacles = inflatedObstacles;
+    }
+
+    /**
+     * @param path Path from the start point to the goal, like from {@link VisGraph#findPath}
+     * @return New path with the fewest waypoints found, or the path itself if there's nothing to remove
+     */
+    public List<Node> simplify(List<Node> path) {
+        if (path == null || path.size() <= 2) {
+            return path;
+        }
+        ObstacleIndex.Scratch scratch = new ObstacleIndex.Scratch();
+        int last = path.size() - 1;
+        List<Node> pulled = new ArrayList<>();
+        pulled.add(path.get(0));
+        int anchor = 0;
+        while (anchor < last) {
+            // Furthest waypoint with a clear line to it, or just the next one if none is
+            int next = anchor + 1;
+            for (int j = last; j > anchor + 1; j--) {
+                if (isClear(path.get(anchor), path.get(j), scratch)) {
+                    next = j;
+                    break;
+                }
+            }
+            pulled.add(path.get(next));
+            anchor = next;
+        }
+
+        // Drop points that barely bend the path. The line skipping them stays within the tolerance of
+        // the path, so it doesn't have to be checked against the obstacles. Every point skipped so far
+        // is checked against the new line, not only the latest one, so small bends can't add up.
+        List<Node> simplified = new ArrayList<>();
+        simplified.add(pulled.get(0));
+        int kept = 0;
+        for (int i = 1; i < pulled.size() - 1; i++) {
+            if (!allNearLine(pulled, kept, i + 1)) {
+                simplified.add(pulled.get(i));
+                kept = i;
+            }
+        }
+        simplified.add(pulled.get(pulled.size() - 1));
+        return simplified.size() == path.size() ? path : simplified;
+    }
+
+    // True if every point strictly between from and to is within the tolerance of the line between them
+    private static boolean allNearLine(List<Node> points, int from, int to) {
+        Node start = points.get(from);
+        Node end = points.get(to);
+        for (int k = from + 1; k < to; k++) {
+            Node point = points.get(k);
+            if (Line2D.ptSegDist(start.x, start.y, end.x, end.y, point.x, point.y) > COLLINEAR_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isClear(Node from, Node to, ObstacleIndex.Scratch scratch) {
+        return !inflatedObstacles.blocks(from.x, from.y, to.x, to.y, scratch);
+    }
+}
@@ -1,13 +1,29 @@
 package frc.robot.pathfind;
 
+import java.awt.geom.Line2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import frc.robot.pathfind.ParallelEdgeBuilder.PairTest;
 
 public class Pathfinder {
     List<Obstacle> obstacles = new ArrayList<>();
     List<Obstacle> obstaclesWithOffsets = new ArrayList<>();
     VisGraph navMesh = new VisGraph();
     double obstacleOffsetDistance;
+    // Set when the mesh is built from bitangents, so the start point is connected the same way
+    ObstacleIndex offsetIndex;
+    // Obstacles added after the mesh was built, and the planner that routes around them
+    private final List<DynamicObstacle> dynamicObstacles = new ArrayList<>();
+    private IncrementalPlanner dynamicPlanner;
+    // Bumped whenever a dynamic obstacle comes or goes, so cached trajectories get thrown out
+    private long dynamicObstacleVersion = 0;
 
     public Pathfinder(double obstacleOffsetDistance) {
         this.obstacleOffsetDistance = obstacleOffsetDistance;
@@ -20,10 +36,72 @@ public class Pathfinder {
         obstaclesWithOffsets.forEach(this::addObstacleNodes);
     }
 
+    /**
+     * Same as {@link #Pathfinder(double, List)}, but offsets the obstacles on the pool.
+     * Nodes are still added in obstacle order, so the mesh is identical.
+     */
+    public Pathfinder(double obstacleOffsetDistance, List<Obstacle> obstacles, ForkJoinPool pool) {
+        this(obstacleOffsetDistance);
+        addObstacles(obstacles, pool);
+    }
+
+    /**
+     * Plans on a mesh that was built somewhere else, like the one {@link frc.robot.FieldNavMesh}
+     * loads. Nothing is added to the mesh, the obstacles are what start points are checked against.
+     */
+    public Pathfinder(VisGraph navMesh, double obstacleOffsetDistance, List<Obstacle> obstacles) {
+        this(obstacleOffsetDistance);
+        this.navMesh = navMesh;
+        this.obstacles = obstacles;
+        obstaclesWithOffsets = obstacles.stream().map(o -> o.offset(obstacleOffsetDistance)).toList();
+    }
+
+    /**
+     * Replaces the obstacles start points are checked against and dynamic obstacles are planned
+     * around. The mesh isn't rebuilt, so its edges stay as they were.
+     */
+    public void setObstacles(List<Obstacle> obstacles) {
+        this.obstacles = obstacles;
+        obstaclesWithOffsets = obstacles.stream().map(o -> o.offset(obstacleOffsetDistance)).toList();
+        obstaclesChanged();
+    }
+
+    /**
+     * Adds an obstacle and the corners of its offset. Existing edges aren't checked against it,
+     * so do this before the edges are generated.
+     */
     public void addObstacle(Obstacle obstacle) {
+        Obstacle offset = obstacle.offset(obstacleOffsetDistance);
         this.obstacles.add(obstacle);
-        this.obstaclesWithOffsets.add(obstacle.offset(obstacleOffsetDistance));
-        addObstacleNodes(obstacle);
+        this.obstaclesWithOffsets.add(offset);
+        addObstacleNodes(offset);
+        obstaclesChanged();
+    }
+
+    /**
+     * Adds the obstacles and the corners of their offsets like {@link #Pathfinder(double, List)}
+     * does, but offsets them on the pool. Nodes are still added in obstacle order.
+     */
+    public void addObstacles(List<Obstacle> obstacles, ForkJoinPool pool) {
+        Obstacle[] offsets = pool.invoke(new OffsetTask(obstacles, obstacleOffsetDistance, 0, obstacles.size()));
+        for (int i = 0; i < offsets.length; i++) {
+            this.obstacles.add(obstacles.get(i));
+            this.obstaclesWithOffsets.add(offsets[i]);
+            addObstacleNodes(offsets[i]);
+        }
+        obstaclesChanged();
+    }
+
+    // Anything built from the old obstacles has to be made again
+    private void obstaclesChanged() {
+        if (offsetIndex != null) {
+            offsetIndex = new ObstacleIndex(obstaclesWithOffsets, true);
+        }
+        dynamicPlanner = null;
+    }
+
+    public VisGraph getNavMesh() {
+        return navMesh;
     }
 
     public void addObstacleNodes(Obstacle obstacle) {
@@ -33,27 +111,150 @@ public class Pathfinder {
     /**
      * Finds a path between the start point and end point.
      * End point should have a node created and edges added for it earlier on, probably
-     * at robot startup, since we'll know all the points we have presets for
+     * at robot startup, since we'll know all the points we have presets for.
+     * The start point is only connected to the mesh for this search and removed afterwards.
      *
      * @param startPoint Current robot position
      * @param endPoint Target position to find a path to
      * @return List of nodes to create a trajectory through, or null if no path is found
      */
     public List<Node> findPath(Node startPoint, Node endPoint) {
-        // Add edges from current position to all other positions
-        addNode(startPoint);
+        // Temporarily add edges from current position to all other positions
+        if (offsetIndex != null) {
+            return navMesh.findPath(startPoint, endPoint, offsetIndex);
+        }
+        return navMesh.findPath(startPoint, endPoint, obstacles);
+    }
 
-        return navMesh.findPath(startPoint, endPoint);
+    /**
+     * Finds which of the goals is cheapest to get to and the path to it, with one search no
+     * matter how many goals there are. Like {@link #findPath(Node, Node)} the start point, and
+     * any goals that aren't part of the mesh, are only connected for this search.
+     *
+     * @param startPoint Current robot position
+     * @param goals Target positions to choose between, like the free scoring positions
+     * @return The nearest goal and the path to it, or null if none of them can be reached
+     */
+    public GoalPath findPathToNearest(Node startPoint, List<Node> goals) {
+        return findPathToNearest(startPoint, goals, null);
+    }
+
+    /**
+     * Same as {@link #findPathToNearest(Node, List)}, with an extra cost for each goal added to the
+     * length of the path to it. A goal with a bias of 1 is only picked over one without if it's
+     * more than a meter closer. An infinite bias leaves the goal out.
+     *
+     * @param costBias Extra cost of each goal in meters, same order as goals, or null for none
+     */
+    public GoalPath findPathToNearest(Node startPoint, List<Node> goals, double[] costBias) {
+        if (offsetIndex != null) {
+            return navMesh.findPathToNearest(startPoint, goals, costBias, offsetIndex);
+        }
+        return navMesh.findPathToNearest(startPoint, goals, costBias, obstacles);
+    }
+
+    /**
+     * Adds an obstacle that moves, like another robot, without rebuilding the mesh.
+     * Do this after the mesh is built. It's offset the same as the other obstacles.
+     *
+     * Only the edges going through it are blocked, and its corners are connected to what
+     * they can see. Paths from {@link #findPathAroundDynamicObstacles(Node, Node)} are then
+     * repaired from that change instead of searched again. To move it, remove it and add it
+     * again at the new spot.
+     *
+     * @param obstacle Obstacle in field coordinates
+     * @return Handle to pass to {@link #removeDynamicObstacle(DynamicObstacle)}
+     */
+    public DynamicObstacle addDynamicObstacle(Obstacle obstacle) {
+        DynamicObstacle dynamicObstacle = new DynamicObstacle(obstacle, obstacleOffsetDistance);
+        addDynamicObstacle(dynamicObstacle);
+        return dynamicObstacle;
+    }
+
+    // For handles made on another thread, see PathPlanningService
+    void addDynamicObstacle(DynamicObstacle dynamicObstacle) {
+        dynamicObstacles.add(dynamicObstacle);
+        dynamicObstacleVersion++;
+        if (dynamicPlanner != null && dynamicPlanner.meshVersion == navMesh.getVersion()) {
+            dynamicPlanner.insert(dynamicObstacle);
+        }
+    }
+
+    public void removeDynamicObstacle(DynamicObstacle obstacle) {
+        if (!dynamicObstacles.remove(obstacle)) {
+            return;
+        }
+        dynamicObstacleVersion++;
+        if (dynamicPlanner != null && dynamicPlanner.meshVersion == navMesh.getVersion()) {
+            dynamicPlanner.remove(obstacle);
+        }
+    }
+
+    boolean hasDynamicObstacles() {
+        return !dynamicObstacles.isEmpty();
+    }
+
+    long getDynamicObstacleVersion() {
+        return dynamicObstacleVersion;
+    }
+
+    /**
+     * Same as {@link #findPath(Node, Node)}, but also avoids the dynamic obstacles.
+     *
+     * Shortest paths to the goal are kept up to date as dynamic obstacles change, so asking for
+     * the same goal again only costs connecting the start point. Asking for a different goal
+     * plans everything to it from scratch once.
+     *
+     * @param startPoint Current robot position
+     * @param endPoint Target position, has to be a node of the mesh
+     * @return List of nodes to create a trajectory through, or null if no path is found
+     */
+    public List<Node> findPathAroundDynamicObstacles(Node startPoint, Node endPoint) {
+        if (!navMesh.containsNode(endPoint)) {
+            throw new IllegalArgumentException("Goal has to be added to the navigation mesh to plan around dynamic obstacles");
+        }
+        IncrementalPlanner planner = getDynamicPlanner();
+        if (!planner.hasGoal(endPoint)) {
+            planner.setGoal(endPoint);
+        }
+        return planner.findPath(startPoint);
+    }
+
+    // Copy of the mesh with the dynamic obstacles in it, made again if the mesh changed
+    private IncrementalPlanner getDynamicPlanner() {
+        if (dynamicPlanner == null || dynamicPlanner.meshVersion != navMesh.getVersion()) {
+            ObstacleIndex staticIndex = offsetIndex != null ? offsetIndex : new ObstacleIndex(obstacles);
+            dynamicPlanner = new IncrementalPlanner(navMesh, staticIndex);
+            for (DynamicObstacle obstacle : dynamicObstacles) {
+                dynamicPlanner.insert(obstacle);
+            }
+        }
+        return dynamicPlanner;
     }
 
     public void addNode(Node node) {
         navMesh.addNode(node);
         for(int i = 0; i < navMesh.getNodeSize(); i++) {
             Node endNode = navMesh.getNode(i);
-            navMesh.addEdge(new Edge(node, endNode), obstacles);
+            if (offsetIndex != null) {
+                navMesh.addEdge(new Edge(node, endNode), offsetIndex);
+            } else {
+                navMesh.addEdge(new Edge(node, endNode), obstacles);
+            }
         }
     }
 
+    /**
+     * Adds a preset position to drive to, and precomputes the shortest path to it from every node.
+     * Do this after {@link #generateNodeEdges()}, paths to it are then looked up instead of searched.
+     *
+     * @param goal Preset position
+     */
+    public void addGoal(Node goal) {
+        addNode(goal);
+        navMesh.precomputeGoal(goal);
+    }
+
     /**
      * Add edges between all nodes. Do this after all obstacles are added to the field
      */
@@ -66,4 +267,214 @@ public class Pathfinder {
             }
         }
     }
+
+    /**
+     * Same as {@link #generateNodeEdges()}, with the visibility checks split across the pool.
+     * Edges are added in the same order as the single threaded version.
+     */
+    public void generateNodeEdges(ForkJoinPool pool) {
+        ObstacleIndex obstacleIndex = new ObstacleIndex(obstacles);
+        double[] xs = nodeXs();
+        double[] ys = nodeYs();
+        PairTest test = (i, j) -> !obstacleIndex.intersects(xs[i], ys[i], xs[j], ys[j]);
+        addPairs(ParallelEdgeBuilder.findPairs(xs.length, () -> test, pool));
+    }
+
+    /**
+     * Add edges between nodes, but only the ones a shortest path could actually use.
+     * Do this instead of {@link #generateNodeEdges()}, after all obstacles are added to the field.
+     *
+     * Edges here are checked against the offset obstacles, and are allowed to touch them
+     * (start or end on a corner, or run along a side) as long as they don't go through them.
+     * With the offset obstacles as the thing to avoid, a shortest path only ever bends around
+     * convex corners, and only leaves a corner along a line that doesn't cut into that obstacle.
+     * So corners that point inwards don't get any edges, and an edge is only added if it's
+     * tangent to the obstacle at both ends. That gives the same shortest paths as connecting
+     * every pair of corners that can see each other, with a fraction of the edges.
+     * Nodes that aren't obstacle corners (presets, etc.) connect to every corner they can see
+     * that they're tangent to. Nodes and start points added afterwards are checked against the
+     * offset obstacles too, so a start point inside an offset obstacle won't find a path.
+     */
+    public void generateBitangentNodeEdges() {
+        offsetIndex = new ObstacleIndex(obstaclesWithOffsets, true);
+        PairTest test = bitangentTests(offsetIndex).get();
+        int nodeCount = navMesh.getNodeSize();
+        for(int i = 0; i < nodeCount; i++) {
+            for(int j = i + 1; j < nodeCount; j++) {
+                if(test.connects(i, j)) {
+                    navMesh.connect(new Edge(navMesh.getNode(i), navMesh.getNode(j)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #generateBitangentNodeEdges()}, with the pair checks split across the pool.
+     */
+    public void generateBitangentNodeEdges(ForkJoinPool pool) {
+        offsetIndex = new ObstacleIndex(obstaclesWithOffsets, true);
+        addPairs(ParallelEdgeBuilder.findPairs(navMesh.getNodeSize(), bitangentTests(offsetIndex), pool));
+    }
+
+    // Classifies every corner up front and shares that between the tests. Each test gets its
+    // own scratch for the obstacle check, so each thread building edges needs its own test.
+    private Supplier<PairTest> bitangentTests(ObstacleIndex offsetIndex) {
+        int nodeCount = navMesh.getNodeSize();
+        // Convex/tangent only mean something for polygons that don't cross over themselves,
+        // corners of any other polygon get treated like regular nodes
+        Map<PolygonDouble, Boolean> simplePolygons = new IdentityHashMap<>();
+        Node[] nodes = new Node[nodeCount];
+        boolean[] prunable = new boolean[nodeCount];
+        boolean[] convex = new boolean[nodeCount];
+        for(int i = 0; i < nodeCount; i++) {
+            Node node = navMesh.getNode(i);
+            nodes[i] = node;
+            prunable[i] = node.polygon != null && simplePolygons.computeIfAbsent(node.polygon, Pathfinder::isSimple);
+            convex[i] = !prunable[i] || isConvexCorner(node);
+        }
+        return () -> {
+            ObstacleIndex.Scratch scratch = new ObstacleIndex.Scratch();
+            return (i, j) -> convex[i] && convex[j]
+                    && (!prunable[i] || isTangent(nodes[i], nodes[j]))
+                    && (!prunable[j] || isTangent(nodes[j], nodes[i]))
+                    && !offsetIndex.crossesInterior(nodes[i].x, nodes[i].y, nodes[j].x, nodes[j].y, scratch);
+        };
+    }
+
+    // Adds the edges found by a parallel build, in the order they were found
+    private void addPairs(long[] pairs) {
+        for(long pair : pairs) {
+            navMesh.connect(new Edge(
+                navMesh.getNode(ParallelEdgeBuilder.first(pair)),
+                navMesh.getNode(ParallelEdgeBuilder.second(pair))));
+        }
+    }
+
+    private double[] nodeXs() {
+        double[] xs = new double[navMesh.getNodeSize()];
+        for(int i = 0; i < xs.length; i++) {
+            xs[i] = navMesh.getNode(i).x;
+        }
+        return xs;
+    }
+
+    private double[] nodeYs() {
+        double[] ys = new double[navMesh.getNodeSize()];
+        for(int i = 0; i < ys.length; i++) {
+            ys[i] = navMesh.getNode(i).y;
+        }
+        return ys;
+    }
+
+    // Tolerance for points that sit on the line being tested
+    private static final double TANGENT_EPSILON = 1e-9;
+
+    // True if the obstacle's interior angle at the corner is under 180deg
+    private static boolean isConvexCorner(Node node) {
+        PolygonDouble polygon = node.polygon;
+        int n = polygon.npoints;
+        int i = node.polygonVertex;
+        int prev = (i + n - 1) % n;
+        int next = (i + 1) % n;
+        double turn = cross(
+            polygon.xpoints[i] - polygon.xpoints[prev], polygon.ypoints[i] - polygon.ypoints[prev],
+            polygon.xpoints[next] - polygon.xpoints[i], polygon.ypoints[next] - polygon.ypoints[i]);
+        // Corner is convex if it turns the same way the polygon winds
+        return turn * signedArea(polygon) >= 0;
+    }
+
+    // True if the line from the corner towards the other node doesn't cut into the corner's obstacle
+    private static boolean isTangent(Node node, Node toward) {
+        PolygonDouble polygon = node.polygon;
+        int n = polygon.npoints;
+        int i = node.polygonVertex;
+        int prev = (i + n - 1) % n;
+        int next = (i + 1) % n;
+        double dx = toward.x - node.x;
+        double dy = toward.y - node.y;
+        double prevSide = cross(dx, dy, polygon.xpoints[prev] - node.x, polygon.ypoints[prev] - node.y);
+        double nextSide = cross(dx, dy, polygon.xpoints[next] - node.x, polygon.ypoints[next] - node.y);
+        if(Math.abs(prevSide) < TANGENT_EPSILON || Math.abs(nextSide) < TANGENT_EPSILON) {
+            // Running along one of the obstacle's sides
+            return true;
+        }
+        // Both neighbouring corners have to be on the same side of the line
+        return (prevSide > 0) == (nextSide > 0);
+    }
+
+    // True if no two sides of the polygon cross or touch, other than neighbours sharing a corner
+    private static boolean isSimple(PolygonDouble polygon) {
+        int n = polygon.npoints;
+        for(int i = 0; i < n; i++) {
+            int i2 = (i + 1) % n;
+            double ax = polygon.xpoints[i], ay = polygon.ypoints[i];
+            double bx = polygon.xpoints[i2], by = polygon.ypoints[i2];
+            for(int j = 0; j < n; j++) {
+                int j2 = (j + 1) % n;
+                // Offsetting can leave a corner sitting right on another side, which
+                // linesIntersect can miss by a rounding error
+                if(j != i && j != i2 && Line2D.ptSegDistSq(ax, ay, bx, by, polygon.xpoints[j], polygon.ypoints[j]) < TANGENT_EPSILON) {
+                    return false;
+                }
+                if(j <= i || j == i2 || j2 == i) {
+                    continue;
+                }
+                if(Line2D.linesIntersect(ax, ay, bx, by,
+                        polygon.xpoints[j], polygon.ypoints[j], polygon.xpoints[j2], polygon.ypoints[j2])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double signedArea(PolygonDouble polygon) {
+        double area = 0;
+        for(int i = 0; i < polygon.npoints; i++) {
+            int j = (i + 1) % polygon.npoints;
+            area += polygon.xpoints[i] * polygon.ypoints[j] - polygon.xpoints[j] * polygon.ypoints[i];
+        }
+        return area / 2;
+    }
+
+    private static double cross(double x1, double y1, double x2, double y2) {
+        return x1 * y2 - y1 * x2;
+    }
+
+    // Offsets a range of obstacles, splitting it in half until there are only a few left
+    private static class OffsetTask extends RecursiveTask<Obstacle[]> {
+        private static final int OBSTACLES_PER_TASK = 2;
+
+        private final List<Obstacle> obstacles;
+        private final double distance;
+        private final int start, end;
+
+        OffsetTask(List<Obstacle> obstacles, double distance, int start, int end) {
+            this.obstacles = obstacles;
+            this.distance = distance;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Obstacle[] compute() {
+            if (end - start <= OBSTACLES_PER_TASK) {
+                Obstacle[] offsets = new Obstacle[end - start];
+                for (int i = start; i < end; i++) {
+                    offsets[i - start] = obstacles.get(i).offset(distance);
+                }
+                return offsets;
+            }
+            int split = (start + end) >>> 1;
+            OffsetTask left = new OffsetTask(obstacles, distance, start, split);
+            OffsetTask right = new OffsetTask(obstacles, distance, split, end);
+            left.fork();
+            Obstacle[] rightOffsets = right.compute();
+            Obstacle[] leftOffsets = left.join();
+
+            Obstacle[] merged = Arrays.copyOf(leftOffsets, leftOffsets.length + rightOffsets.length);
+            System.arraycopy(rightOffsets, 0, merged, leftOffsets.length, rightOffsets.length);
+            return merged;
+        }
+    }
 }
@@ -0,0 +1,157 @@
+package frc.robot.pathfind;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of trajectories planned by a {@link PathPlanningService}.
+ *
+ * Entries are keyed by the goal node plus the start pose and speed rounded to a grid, so asking
+ * for the same goal from roughly the same spot gets the trajectory planned last time instead of a
+ * new search and spline. A hit can start up to half a grid step away from where the robot actually
+ * is, which the trajectory follower corrects for; pick the resolution with that in mind.
+ *
+ * Everything is thrown away when the navigation mesh, the planner's obstacles, or its dynamic
+ * obstacles change, or when {@link #invalidate()} is called.
+ */
+public class TrajectoryCache<T> {
+    private final int capacity;
+    private final double positionResolution;
+    private final double headingResolution;
+    private final double velocityResolution;
+    private final LinkedHashMap<Key, T> entries;
+    private long meshVersion = -1;
+    private long obstacleVersion = -1;
+    private long dynamicObstacleVersion = -1;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param capacity Most trajectories to keep before dropping the least recently used one
+     * @param positionResolution Grid size the start position is rounded to, in meters
+     * @param headingResolution Step the start heading is rounded to, in radians
+     * @param velocityResolution Step the start speed is rounded to, in m/s
+     */
+    public TrajectoryCache(int capacity, double positionResolution, double headingResolution,
+            double velocityResolution) {
+        if (capacity < 1 || positionResolution <= 0 || headingResolution <= 0 || velocityResolution <= 0) {
+            throw new IllegalArgumentException("Cache capacity and resolutions have to be positive");
+        }
+        this.capacity = capacity;
+        this.positionResolution = positionResolution;
+        this.headingResolution = headingResolution;
+        this.velocityResolution = velocityResolution;
+        // Access order, so iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, T> eldest) {
+                return size() > TrajectoryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Throws away every cached trajectory. Call this if something the planner doesn't know about
+     * makes the old trajectories unsafe.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    // Looks up a trajectory, counting the hit or miss. The versions say what the planner currently looks like.
+    synchronized T get(Node start, Node goal, double startVelocity, long meshVersion, long obstacleVersion,
+            long dynamicObstacleVersion) {
+        checkVersions(meshVersion, obstacleVersion, dynamicObstacleVersion);
+        T trajectory = entries.get(key(start, goal, startVelocity));
+        if (trajectory == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return trajectory;
+    }
+
+    synchronized void put(Node start, Node goal, double startVelocity, long meshVersion, long obstacleVersion,
+            long dynamicObstacleVersion, T trajectory) {
+        checkVersions(meshVersion, obstacleVersion, dynamicObstacleVersion);
+        entries.put(key(start, goal, startVelocity), trajectory);
+    }
+
+    private void checkVersions(long meshVersion, long obstacleVersion, long dynamicObstacleVersion) {
+        if (meshVersion != this.meshVersion || obstacleVersion != this.obstacleVersion
+                || dynamicObstacleVersion != this.dynamicObstacleVersion) {
+            entries.clear();
+            this.meshVersion = meshVersion;
+            this.obstacleVersion = obstacleVersion;
+            this.dynamicObstacleVersion = dynamicObstacleVersion;
+        }
+    }
+
+    private Key key(Node start, Node goal, double startVelocity) {
+        double heading = start.getHolRot() == null ? 0.0 : start.getHolRot().getRadians();
+        // Wrap so headings either side of +-pi land in the same bucket
+        heading = Math.IEEEremainder(heading, 2 * Math.PI);
+        long headingSteps = Math.round(2 * Math.PI / headingResolution);
+        long headingBucket = Math.floorMod(Math.round(heading / headingResolution), Math.max(headingSteps, 1));
+        return new Key(goal,
+                Math.round(start.x / positionResolution),
+                Math.round(start.y / positionResolution),
+                headingBucket,
+                Math.round(startVelocity / velocityResolution));
+    }
+
+    private static final class Key {
+        // Goals are compared by identity, they're the same Node objects every time
+        private final Node goal;
+        private final long x, y, heading, velocity;
+
+        Key(Node goal, long x, long y, long heading, long velocity) {
+            this.goal = goal;
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
+            this.velocity = velocity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return goal == other.goal && x == other.x && y == other.y && heading == other.heading
+                    && velocity == other.velocity;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(goal);
+            hash = 31 * hash + Long.hashCode(x);
+            hash = 31 * hash + Long.hashCode(y);
+            hash = 31 * hash + Long.hashCode(heading);
+            return 31 * hash + Long.hashCode(velocity);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package frc.robot.pathfind;
 
-import java.awt.geom.Line2D;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -14,6 +13,11 @@ public class VisGraph {
     // A class representing the navigation mesh
     private final List<Node> nodes;
     private final List<Edge> edges;
+    private final IndexedAStar search = new IndexedAStar();
+    private ObstacleIndex obstacleIndex;
+    // Bumped every time a node or edge is added for good, so precomputed goal trees know when they're stale
+    private long version = 0;
+    private final Map<Node, GoalPathTree> goalTrees = new HashMap<>();
 
     public VisGraph() {
         this.nodes = new ArrayList<>();
@@ -22,7 +26,9 @@ public class VisGraph {
 
     // Add a node to the navigation mesh
     public void addNode(Node node) {
+        node.index = this.nodes.size();
         this.nodes.add(node);
+        version++;
     }
 
     public int getNodeSize() {
@@ -33,33 +39,270 @@ public class VisGraph {
         return nodes.get(index);
     }
 
+    public int getEdgeSize() {
+        return edges.size();
+    }
+
+    // Changes whenever the mesh does, anything cached from a search is stale once this moves
+    long getVersion() {
+        return version;
+    }
+
     // Add an edge to the navigation mesh
     public boolean addEdge(Edge edge, List<Obstacle> obstacles) {
-        // Why not use the Line2D class' static method of .linesIntersect() ? I am just hold on
-        for (Obstacle obstacle : obstacles) {
-            PolygonDouble polygon = obstacle.polygon;
-            for (int i = 0; i < polygon.npoints; i++) {
-                int j = (i + 1) % polygon.npoints;
-                // Couldn't the mod be eliminated by starting the index i at 1 and manually checking the segment between the last vertex and first one before this? Well
-                double x1 = polygon.xpoints[i];
-                double y1 = polygon.ypoints[i];
-                double x2 = polygon.xpoints[j];
-                double y2 = polygon.ypoints[j];
-                if (Line2D.linesIntersect(x1, y1, x2, y2, edge.start.x, edge.start.y, edge.end.x, edge.end.y)) {
-                    return false;
-                }
-            }
+        return addEdge(edge, getObstacleIndex(obstacles));
+    }
+
+    // Add an edge to the navigation mesh if it doesn't cross any of the indexed obstacles
+    public boolean addEdge(Edge edge, ObstacleIndex obstacleIndex) {
+        if (obstacleIndex.blocks(edge.start.x, edge.start.y, edge.end.x, edge.end.y)) {
+            return false;
         }
+        connect(edge);
+        return true;
+    }
+
+    // Add an edge that's already been checked against the obstacles
+    void connect(Edge edge) {
+        link(edge);
+        version++;
+    }
+
+    private void link(Edge edge) {
         this.edges.add(edge);
         edge.start.addNeighbor(edge.end);
         edge.end.addNeighbor(edge.start);
-        return true;
+    }
+
+    // Reuse the last index as long as we keep getting asked about the same obstacles
+    private ObstacleIndex getObstacleIndex(List<Obstacle> obstacles) {
+        if (obstacleIndex == null || !obstacleIndex.isFor(obstacles)) {
+            obstacleIndex = new ObstacleIndex(obstacles);
+        }
+        return obstacleIndex;
     }
 
 
+    // Check if the node was added to this navigation mesh
+    public boolean containsNode(Node node) {
+        return node.index >= 0 && node.index < nodes.size() && nodes.get(node.index) == node;
+    }
+
     // Find a path through the navigation mesh from the start node to the goal node
     public List<Node> findPath(Node start, Node goal) {
-        // Use A* search to find the shortest path through the navigation mesh
+        if (containsNode(start) && containsNode(goal)) {
+            return search.findPath(nodes, start, goal);
+        }
+        // Start or goal were never added to the mesh, so they don't have an index to search with
+        return findPathUnindexed(start, goal);
+    }
+
+    /**
+     * Finds a path between two points without permanently changing the navigation mesh.
+     *
+     * Whichever of start and goal aren't already part of the mesh get added for this one
+     * search, connected to every node they can see, then removed again along with their
+     * edges. The mesh is the same size afterwards no matter how many times this is called.
+     *
+     * If the goal was passed to {@link #precomputeGoal(Node)}, this doesn't search at all,
+     * it just picks the best node the start can see from the precomputed distances.
+     *
+     * @param start Current robot position
+     * @param goal Target position to find a path to
+     * @param obstacles Obstacles to check edges from the temporary nodes against
+     * @return List of nodes to create a trajectory through, or null if no path is found
+     */
+    public List<Node> findPath(Node start, Node goal, List<Obstacle> obstacles) {
+        return findPath(start, goal, getObstacleIndex(obstacles));
+    }
+
+    /**
+     * Same as {@link #findPath(Node, Node, List)}, checking edges from the temporary nodes with
+     * an index that's already built.
+     */
+    public List<Node> findPath(Node start, Node goal, ObstacleIndex obstacleIndex) {
+        GoalPathTree tree = goalTrees.get(goal);
+        if (tree != null && !containsNode(start) && containsNode(goal)) {
+            if (tree.graphVersion != version) {
+                // Mesh changed since the tree was built
+                tree = buildGoalTree(goal);
+            }
+            return tree.findPath(nodes, start, obstacleIndex);
+        }
+
+        int nodeMark = nodes.size();
+        int edgeMark = edges.size();
+        try {
+            if (!containsNode(start)) {
+                attachNode(start, obstacleIndex);
+            }
+            if (!containsNode(goal)) {
+                attachNode(goal, obstacleIndex);
+            }
+            return findPath(start, goal);
+        } finally {
+            detachTo(nodeMark, edgeMark);
+        }
+    }
+
+    /**
+     * Finds the cheapest path from the start to any one of the goals, in a single search instead
+     * of one per goal.
+     *
+     * The cost of a goal is the length of the path to it plus its bias, so a goal can be made
+     * less attractive (e.g. a scoring position that's harder to line up at) without ruling it out.
+     * A goal with an infinite bias is skipped. Start and goals that aren't part of the mesh are
+     * connected for this one search and removed afterwards, like {@link #findPath(Node, Node, List)}.
+     *
+     * @param start Current robot position
+     * @param goals Positions to choose between
+     * @param bias Extra cost of each goal, in meters, same length as goals. Null for none
+     * @param obstacleIndex Obstacles to check edges from the temporary nodes against
+     * @return The cheapest goal and the path to it, or null if none of them can be reached
+     */
+    public GoalPath findPathToNearest(Node start, List<Node> goals, double[] bias, ObstacleIndex obstacleIndex) {
+        if (bias != null && bias.length != goals.size()) {
+            throw new IllegalArgumentException("Need one bias per goal, got " + bias.length + " for " + goals.size() + " goals");
+        }
+        // Only the differences between biases matter, so shift them to start at zero
+        // and the heuristic never overestimates
+        double minBias = Double.POSITIVE_INFINITY;
+        int goalCount = 0;
+        for (int k = 0; k < goals.size(); k++) {
+            double b = bias == null ? 0.0 : bias[k];
+            if (Double.isNaN(b)) {
+                throw new IllegalArgumentException("Bias of goal " + k + " is NaN");
+            }
+            if (b != Double.POSITIVE_INFINITY) {
+                minBias = Math.min(minBias, b);
+                goalCount++;
+            }
+        }
+        if (goalCount == 0) {
+            return null;
+        }
+
+        int nodeMark = nodes.size();
+        int edgeMark = edges.size();
+        try {
+            if (!containsNode(start)) {
+                attachNode(start, obstacleIndex);
+            }
+            int[] goalIndices = new int[goalCount];
+            double[] shiftedBias = new double[goalCount];
+            int next = 0;
+            for (int k = 0; k < goals.size(); k++) {
+                double b = bias == null ? 0.0 : bias[k];
+                if (b == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                Node goal = goals.get(k);
+                if (!containsNode(goal)) {
+                    attachNode(goal, obstacleIndex);
+                }
+                goalIndices[next] = goal.index;
+                shiftedBias[next] = b - minBias;
+                next++;
+            }
+            List<Node> path = search.findPathToAny(nodes, start, goalIndices, shiftedBias);
+            if (path == null) {
+                return null;
+            }
+            // Of the entries for the goal it ended at, the one with the smallest bias is what it used
+            Node reached = path.get(path.size() - 1);
+            int goalIndex = -1;
+            double goalBias = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < goals.size(); k++) {
+                double b = bias == null ? 0.0 : bias[k];
+                if (goals.get(k) == reached && b < goalBias) {
+                    goalIndex = k;
+                    goalBias = b;
+                }
+            }
+            double length = 0;
+            for (int i = 1; i < path.size(); i++) {
+                length += distance(path.get(i - 1), path.get(i));
+            }
+            return new GoalPath(reached, goalIndex, path, length + goalBias);
+        } finally {
+            detachTo(nodeMark, edgeMark);
+        }
+    }
+
+    /**
+     * Same as {@link #findPathToNearest(Node, List, double[], ObstacleIndex)}, checking edges from
+     * the temporary nodes against the obstacles.
+     */
+    public GoalPath findPathToNearest(Node start, List<Node> goals, double[] bias, List<Obstacle> obstacles) {
+        return findPathToNearest(start, goals, bias, getObstacleIndex(obstacles));
+    }
+
+    /**
+     * Precomputes the shortest path from every node in the mesh to this goal, so later
+     * {@link #findPath(Node, Node, List)} calls to it only have to connect the start point.
+     * Call it after all nodes and edges are in, for each preset position the robot drives to.
+     * If the mesh changes afterwards the tree is rebuilt on the next query.
+     *
+     * @param goal Node that's already part of the mesh
+     */
+    public void precomputeGoal(Node goal) {
+        if (!containsNode(goal)) {
+            throw new IllegalArgumentException("Goal has to be added to the navigation mesh before it's precomputed");
+        }
+        buildGoalTree(goal);
+    }
+
+    private GoalPathTree buildGoalTree(Node goal) {
+        GoalPathTree tree = new GoalPathTree(nodes, goal, version);
+        goalTrees.put(goal, tree);
+        return tree;
+    }
+
+    // Temporarily add a node and edges from it to every node it can see, for one search.
+    // The version isn't bumped since detachTo takes it all back out, so precomputed trees stay valid.
+    // Package-private so benchmarks can time connecting a start point on its own.
+    void attachNode(Node node, ObstacleIndex obstacleIndex) {
+        node.index = nodes.size();
+        nodes.add(node);
+        for (int i = 0; i < nodes.size() - 1; i++) {
+            Node other = nodes.get(i);
+            if (!obstacleIndex.blocks(node.x, node.y, other.x, other.y)) {
+                link(new Edge(node, other));
+            }
+        }
+    }
+
+    // Remove every node and edge added after the marks, newest first. Only meant for undoing
+    // attachNode, so like it this leaves the version alone.
+    void detachTo(int nodeMark, int edgeMark) {
+        for (int i = edges.size() - 1; i >= edgeMark; i--) {
+            Edge edge = edges.remove(i);
+            removeNeighbor(edge.start, edge.end);
+            removeNeighbor(edge.end, edge.start);
+        }
+        for (int i = nodes.size() - 1; i >= nodeMark; i--) {
+            Node node = nodes.remove(i);
+            node.index = -1;
+        }
+    }
+
+    private static void removeNeighbor(Node node, Node neighbor) {
+        List<Node> neighbors = node.neighbors;
+        int last = neighbors.size() - 1;
+        // Temporary edges are always the newest, so this is almost always the last entry
+        if (last >= 0 && neighbors.get(last) == neighbor) {
+            neighbors.remove(last);
+        } else {
+            int index = neighbors.lastIndexOf(neighbor);
+            if (index >= 0) {
+                neighbors.remove(index);
+            }
+        }
+    }
+
+    // A* search keyed on the nodes themselves, for nodes that aren't part of the mesh.
+    // Package-private so benchmarks can compare it against the indexed search.
+    List<Node> findPathUnindexed(Node start, Node goal) {
         Set<Node> closedSet = new HashSet<>();
         Set<Node> openSet = new HashSet<>();
         Map<Node, Double> gScore = new HashMap<>();
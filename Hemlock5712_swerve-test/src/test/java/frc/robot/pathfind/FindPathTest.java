@@ -0,0 +1,194 @@
+package frc.robot.pathfind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants;
+
+/**
+ * Checks the indexed A* in {@link VisGraph#findPath} finds paths as short as the old HashMap based
+ * search. How long each of them takes is in the JMH suite, see PathQueryBenchmark.
+ */
+public class FindPathTest {
+
+    @Test
+    public void fieldObstacles() {
+        checkSamePathLengths(Constants.FieldConstants.obstacles);
+    }
+
+    @Test
+    public void syntheticObstacles() {
+        // Grid of small squares, a lot more nodes than the field
+        List<Obstacle> obstacles = new ArrayList<>();
+        for (int col = 0; col < 8; col++) {
+            for (int row = 0; row < 4; row++) {
+                double x = 1.5 + col * 1.8;
+                double y = 0.8 + row * 1.8;
+                obstacles.add(new Obstacle(new double[] {x, x, x + 0.6, x + 0.6}, new double[] {y, y + 0.6, y + 0.6, y}));
+            }
+        }
+        checkSamePathLengths(obstacles);
+    }
+
+    @Test
+    public void temporaryNodesLeaveVersionAlone() {
+        Pathfinder pathfinder = new Pathfinder(0.5, Constants.FieldConstants.obstacles);
+        pathfinder.generateNodeEdges();
+        VisGraph graph = pathfinder.navMesh;
+        long version = graph.getVersion();
+        int nodes = graph.getNodeSize();
+        int edges = graph.getEdgeSize();
+
+        assertNotNull(pathfinder.findPath(new Node(0.5, 4.0), new Node(15.5, 4.0)));
+        int edgeMark = graph.getEdgeSize();
+        graph.attachNode(new Node(0.5, 2.0), new ObstacleIndex(Constants.FieldConstants.obstacles));
+        graph.detachTo(nodes, edgeMark);
+
+        assertEquals(version, graph.getVersion());
+        assertEquals(nodes, graph.getNodeSize());
+        assertEquals(edges, graph.getEdgeSize());
+    }
+
+    @Test
+    public void addedObstacleIsAvoided() {
+        Pathfinder pathfinder = new Pathfinder(0.1);
+        pathfinder.addObstacle(new Obstacle(new double[] {8.0, 8.0, 8.5, 8.5}, new double[] {6.0, 6.5, 6.5, 6.0}));
+        Node goal = new Node(5.0, 1.0);
+        pathfinder.addNode(goal);
+        pathfinder.generateNodeEdges();
+        assertEquals(2, pathfinder.findPath(new Node(1.0, 1.0), goal).size());
+
+        // Wall right across the straight line, with a way around over the top
+        Obstacle wall = new Obstacle(new double[] {2.9, 2.9, 3.1, 3.1}, new double[] {0.0, 2.0, 2.0, 0.0});
+        pathfinder.addObstacle(wall);
+        pathfinder.addNode(new Node(3.0, 2.5));
+        List<Node> path = pathfinder.findPath(new Node(1.0, 1.0), goal);
+        assertNotNull(path);
+        ObstacleIndex wallIndex = new ObstacleIndex(List.of(wall));
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(wallIndex.intersects(path.get(i - 1).x, path.get(i - 1).y, path.get(i).x, path.get(i).y));
+        }
+    }
+
+    @Test
+    public void bitangentMeshKeepsPathLengths() {
+        List<Obstacle> obstacles = Constants.FieldConstants.obstacles;
+        Pathfinder bitangent = new Pathfinder(0.5, obstacles);
+        bitangent.generateBitangentNodeEdges();
+
+        // Every pair of corners that can see each other, under the same rule as the bitangent build
+        Pathfinder allPairs = new Pathfinder(0.5, obstacles);
+        allPairs.offsetIndex = new ObstacleIndex(allPairs.obstaclesWithOffsets, true);
+        VisGraph graph = allPairs.navMesh;
+        for (int i = 0; i < graph.getNodeSize(); i++) {
+            for (int j = i + 1; j < graph.getNodeSize(); j++) {
+                Node a = graph.getNode(i);
+                Node b = graph.getNode(j);
+                if (!allPairs.offsetIndex.crossesInterior(a.x, a.y, b.x, b.y)) {
+                    graph.connect(new Edge(a, b));
+                }
+            }
+        }
+        assertTrue(bitangent.navMesh.getEdgeSize() < graph.getEdgeSize());
+
+        Random random = new Random(5712);
+        for (int i = 0; i < 50; i++) {
+            Node start = new Node(0.2 + random.nextDouble() * 16, 0.2 + random.nextDouble() * 7.6);
+            Node goal = new Node(0.2 + random.nextDouble() * 16, 0.2 + random.nextDouble() * 7.6);
+            List<Node> expected = allPairs.findPath(new Node(start.x, start.y), new Node(goal.x, goal.y));
+            List<Node> actual = bitangent.findPath(start, goal);
+            if (expected == null) {
+                // Start or goal inside an offset obstacle
+                assertNull(actual);
+            } else {
+                assertNotNull(actual);
+                assertEquals(pathLength(expected), pathLength(actual), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void nearestGoalMatchesSeparateSearches() {
+        Pathfinder pathfinder = new Pathfinder(0.5, Constants.FieldConstants.obstacles);
+        pathfinder.generateNodeEdges();
+        Random random = new Random(14);
+        for (int trial = 0; trial < 20; trial++) {
+            Node start = new Node(0.2 + random.nextDouble() * 1.5, 0.5 + random.nextDouble() * 7);
+            List<Node> goals = new ArrayList<>();
+            double[] bias = new double[5];
+            for (int i = 0; i < bias.length; i++) {
+                goals.add(new Node(14.5 + random.nextDouble(), 0.5 + random.nextDouble() * 7));
+                bias[i] = random.nextDouble() * 3;
+            }
+            bias[trial % bias.length] = Double.POSITIVE_INFINITY;
+
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < goals.size(); i++) {
+                List<Node> path = pathfinder.findPath(start, goals.get(i));
+                if (path != null) {
+                    best = Math.min(best, pathLength(path) + bias[i]);
+                }
+            }
+
+            GoalPath nearest = pathfinder.findPathToNearest(start, goals, bias);
+            if (best == Double.POSITIVE_INFINITY) {
+                assertNull(nearest);
+                continue;
+            }
+            assertNotNull(nearest);
+            assertSame(goals.get(nearest.getGoalIndex()), nearest.getGoal());
+            assertEquals(best, nearest.getCost(), 1e-9);
+            assertEquals(best, pathLength(nearest.getPath()) + bias[nearest.getGoalIndex()], 1e-9);
+        }
+    }
+
+    private static void checkSamePathLengths(List<Obstacle> obstacles) {
+        Pathfinder pathfinder = new Pathfinder(0.5, obstacles);
+        // Fixed seed so every run asks the same questions
+        Random random = new Random(5712);
+        List<Node> starts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Node start = new Node(0.2 + random.nextDouble() * 0.8, 0.5 + random.nextDouble() * 7);
+            pathfinder.addNode(start);
+            starts.add(start);
+        }
+        List<Node> goals = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Node goal = new Node(15.5, 0.8 + i * 2.0);
+            pathfinder.addNode(goal);
+            goals.add(goal);
+        }
+        pathfinder.generateNodeEdges();
+        VisGraph graph = pathfinder.navMesh;
+
+        for (Node start : starts) {
+            for (Node goal : goals) {
+                List<Node> indexed = graph.findPath(start, goal);
+                List<Node> unindexed = graph.findPathUnindexed(start, goal);
+                assertNotNull(indexed);
+                assertNotNull(unindexed);
+                assertSame(start, indexed.get(0));
+                assertSame(goal, indexed.get(indexed.size() - 1));
+                assertEquals(pathLength(unindexed), pathLength(indexed), 1e-9);
+            }
+        }
+    }
+
+    private static double pathLength(List<Node> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += Math.hypot(path.get(i).x - path.get(i - 1).x, path.get(i).y - path.get(i - 1).y);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,82 @@
+package frc.robot.pathfind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants;
+
+/**
+ * Checks the paths {@link IncrementalPlanner} repairs as dynamic obstacles come and go against a
+ * planner built from scratch with the same obstacles.
+ */
+public class IncrementalPlannerTest {
+    private static final double OFFSET = 0.5;
+
+    @Test
+    public void repairedPathsMatchFullSearch() {
+        Pathfinder pathfinder = new Pathfinder(OFFSET, Constants.FieldConstants.obstacles);
+        pathfinder.generateBitangentNodeEdges();
+        Node goal = new Node(15.5, 4.0);
+        pathfinder.addNode(goal);
+        VisGraph graph = pathfinder.navMesh;
+        ObstacleIndex staticIndex = pathfinder.offsetIndex;
+
+        IncrementalPlanner planner = new IncrementalPlanner(graph, staticIndex);
+        planner.setGoal(goal);
+        List<DynamicObstacle> present = new ArrayList<>();
+        // Fixed seed so every run makes the same changes
+        Random random = new Random(9);
+        for (int step = 0; step < 400; step++) {
+            if (present.isEmpty() || (present.size() < 4 && random.nextBoolean())) {
+                double x = 1.5 + random.nextDouble() * 12;
+                double y = 0.5 + random.nextDouble() * 6.5;
+                double size = 0.3 + random.nextDouble() * 0.6;
+                DynamicObstacle obstacle = new DynamicObstacle(
+                    new Obstacle(new double[] {x, x, x + size, x + size}, new double[] {y, y + size, y + size, y}), OFFSET);
+                present.add(obstacle);
+                planner.insert(obstacle);
+            } else {
+                planner.remove(present.remove(random.nextInt(present.size())));
+            }
+
+            // Obstacles keep track of where they are in the planner, so the rebuilt one gets its own
+            IncrementalPlanner rebuilt = new IncrementalPlanner(graph, staticIndex);
+            for (DynamicObstacle obstacle : present) {
+                rebuilt.insert(new DynamicObstacle(obstacle.obstacle, OFFSET));
+            }
+            rebuilt.setGoal(goal);
+            for (int i = 0; i < 4; i++) {
+                Node start = new Node(0.3 + random.nextDouble() * 1.2, 0.3 + random.nextDouble() * 7.4);
+                List<Node> expected = rebuilt.findPath(start);
+                List<Node> actual = planner.findPath(start);
+                if (expected == null) {
+                    assertNull(actual, "step " + step);
+                    continue;
+                }
+                assertEquals(pathLength(expected), pathLength(actual), 1e-9, "step " + step);
+                for (DynamicObstacle obstacle : present) {
+                    for (int n = 1; n < actual.size(); n++) {
+                        Node a = actual.get(n - 1);
+                        Node b = actual.get(n);
+                        assertFalse(obstacle.index.blocks(a.x, a.y, b.x, b.y), "step " + step);
+                    }
+                }
+            }
+        }
+    }
+
+    private static double pathLength(List<Node> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += Math.hypot(path.get(i).x - path.get(i - 1).x, path.get(i).y - path.get(i - 1).y);
+        }
+        return length;
+    }
+}
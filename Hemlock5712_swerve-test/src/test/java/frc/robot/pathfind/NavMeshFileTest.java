@@ -0,0 +1,99 @@
+package frc.robot.pathfind;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants;
+
+/**
+ * Checks a mesh written by {@link NavMeshFile} comes back with the same nodes, edges and paths.
+ */
+public class NavMeshFileTest {
+    private static final double OFFSET = 0.5;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void loadedMeshMatchesBuiltMesh() throws IOException {
+        List<Obstacle> obstacles = Constants.FieldConstants.obstacles;
+        List<Node> presets = List.of(new Node(4, 4, Rotation2d.fromDegrees(180)));
+        Pathfinder built = new Pathfinder(OFFSET);
+        for (Node preset : presets) {
+            built.getNavMesh().addNode(preset);
+        }
+        for (Obstacle obstacle : obstacles) {
+            built.addObstacle(obstacle);
+        }
+        built.generateNodeEdges();
+        VisGraph builtMesh = built.getNavMesh();
+
+        long fingerprint = NavMeshFile.fingerprint(obstacles, OFFSET, presets);
+        Path file = tempDir.resolve("navmesh.bin");
+        NavMeshFile.write(builtMesh, fingerprint, file);
+        VisGraph loadedMesh = NavMeshFile.load(file, fingerprint);
+
+        assertEquals(builtMesh.getNodeSize(), loadedMesh.getNodeSize());
+        assertEquals(builtMesh.getEdgeSize(), loadedMesh.getEdgeSize());
+        for (int i = 0; i < builtMesh.getNodeSize(); i++) {
+            Node expected = builtMesh.getNode(i);
+            Node actual = loadedMesh.getNode(i);
+            assertEquals(expected.x, actual.x, 0.0);
+            assertEquals(expected.y, actual.y, 0.0);
+            assertEquals(expected.holonomicRotation.getRadians(), actual.holonomicRotation.getRadians(), 0.0);
+            assertArrayEquals(neighborIndices(expected), neighborIndices(actual), "node " + i);
+        }
+
+        Pathfinder loaded = new Pathfinder(loadedMesh, OFFSET, obstacles);
+        // Fixed seed so every run asks the same questions
+        Random random = new Random(13);
+        for (int trial = 0; trial < 50; trial++) {
+            double startX = 0.2 + random.nextDouble() * 16;
+            double startY = 0.2 + random.nextDouble() * 7.6;
+            int goal = random.nextInt(builtMesh.getNodeSize());
+            List<Node> expected = built.findPath(new Node(startX, startY), builtMesh.getNode(goal));
+            List<Node> actual = loaded.findPath(new Node(startX, startY), loadedMesh.getNode(goal));
+            if (expected == null) {
+                assertNull(actual, "trial " + trial);
+                continue;
+            }
+            assertNotNull(actual, "trial " + trial);
+            assertEquals(pathLength(expected), pathLength(actual), 1e-9, "trial " + trial);
+        }
+    }
+
+    @Test
+    public void otherFingerprintIsRejected() throws IOException {
+        Pathfinder built = new Pathfinder(OFFSET, Constants.FieldConstants.obstacles);
+        built.generateNodeEdges();
+        Path file = tempDir.resolve("navmesh.bin");
+        NavMeshFile.write(built.getNavMesh(), 1, file);
+
+        assertThrows(IOException.class, () -> NavMeshFile.load(file, 2));
+    }
+
+    // Indices of the neighbours in order, edges can come back listed from the other end first
+    private static int[] neighborIndices(Node node) {
+        return node.neighbors.stream().mapToInt(neighbor -> neighbor.index).sorted().toArray();
+    }
+
+    private static double pathLength(List<Node> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += Math.hypot(path.get(i).x - path.get(i - 1).x, path.get(i).y - path.get(i - 1).y);
+        }
+        return length;
+    }
+}
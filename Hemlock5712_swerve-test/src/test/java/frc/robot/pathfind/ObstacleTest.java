@@ -0,0 +1,136 @@
+package frc.robot.pathfind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Checks {@link Obstacle#offset(double)} grows every kind of polygon by the distance, and still
+ * gives exactly what the old Translation2d based version did for the shapes that one handled.
+ */
+public class ObstacleTest {
+
+    @Test
+    public void starShapesGrowByTheDistance() {
+        // Fixed seed so every run checks the same shapes
+        Random random = new Random(2000);
+        for (int shape = 0; shape < 2000; shape++) {
+            int n = 3 + random.nextInt(10);
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                // Jittered, but never more than half a turn between neighbours, or the sides can cross
+                double angle = (i + 0.4 * random.nextDouble()) * 2 * Math.PI / n;
+                double radius = 0.3 + random.nextDouble() * 1.2;
+                xs[i] = 5 + radius * Math.cos(angle);
+                ys[i] = 3 + radius * Math.sin(angle);
+            }
+            if (random.nextBoolean()) {
+                reverse(xs);
+                reverse(ys);
+            }
+            Obstacle obstacle = new Obstacle(xs, ys);
+            double distance = 0.05 + random.nextDouble() * 0.5;
+
+            PolygonDouble offset = obstacle.offset(distance).polygon;
+            assertTrue(offset.npoints >= 3, "shape " + shape);
+            for (int i = 0; i < offset.npoints; i++) {
+                double x = offset.xpoints[i];
+                double y = offset.ypoints[i];
+                assertFalse(obstacle.polygon.contains(x, y), "shape " + shape);
+                assertTrue(distanceToSides(obstacle.polygon, x, y) >= distance - 1e-9, "shape " + shape);
+            }
+        }
+    }
+
+    @Test
+    public void convexClockwiseMatchesOldOffset() {
+        Random random = new Random(10);
+        for (int shape = 0; shape < 500; shape++) {
+            // Points on an ellipse, spread out enough that no corner is close to straight
+            int n = 3 + random.nextInt(8);
+            double start = random.nextDouble() * 2 * Math.PI;
+            double width = 0.2 + random.nextDouble() * 2;
+            double height = 0.2 + random.nextDouble() * 2;
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                // Decreasing angle, so clockwise
+                double angle = start - (i + 0.5 * random.nextDouble()) * 2 * Math.PI / n;
+                xs[i] = 8 + width * Math.cos(angle);
+                ys[i] = 4 + height * Math.sin(angle);
+            }
+            double distance = 0.01 + random.nextDouble();
+
+            PolygonDouble expected = oldOffset(xs, ys, distance);
+            PolygonDouble actual = new Obstacle(xs, ys).offset(distance).polygon;
+            assertEquals(expected.npoints, actual.npoints, "shape " + shape);
+            for (int i = 0; i < expected.npoints; i++) {
+                assertEquals(expected.xpoints[i], actual.xpoints[i], 0.0, "shape " + shape);
+                assertEquals(expected.ypoints[i], actual.ypoints[i], 0.0, "shape " + shape);
+            }
+        }
+    }
+
+    @Test
+    public void offsetsAreRemembered() {
+        Obstacle obstacle = new Obstacle(new double[] {0, 0, 1, 1}, new double[] {0, 1, 1, 0});
+        Obstacle offset = obstacle.offset(0.5);
+        assertSame(offset, obstacle.offset(0.5));
+        assertNotSame(offset, obstacle.offset(0.25));
+        assertSame(offset, obstacle.offset(0.5));
+    }
+
+    private static double distanceToSides(PolygonDouble polygon, double x, double y) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < polygon.npoints; i++) {
+            int j = (i + 1) % polygon.npoints;
+            closest = Math.min(closest, Line2D.ptSegDist(
+                polygon.xpoints[i], polygon.ypoints[i], polygon.xpoints[j], polygon.ypoints[j], x, y));
+        }
+        return closest;
+    }
+
+    private static void reverse(double[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    // What offset() did before it was rewritten, for polygons without concave corners: move every
+    // side along its left normal and join them with a bevel
+    private static PolygonDouble oldOffset(double[] xs, double[] ys, double distance) {
+        int n = xs.length;
+        List<Translation2d> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Translation2d point1 = new Translation2d(xs[i], ys[i]);
+            Translation2d point2 = new Translation2d(xs[(i + 1) % n], ys[(i + 1) % n]);
+            Rotation2d angle = point2.minus(point1).getAngle();
+            Rotation2d transformAngle = angle.plus(Rotation2d.fromDegrees(90));
+            Translation2d offset = new Translation2d(distance, 0).rotateBy(transformAngle);
+            points.add(point1.plus(offset));
+            points.add(point2.plus(offset));
+        }
+        double[] offsetXs = new double[points.size()];
+        double[] offsetYs = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            offsetXs[i] = points.get(i).getX();
+            offsetYs[i] = points.get(i).getY();
+        }
+        return new PolygonDouble(offsetXs, offsetYs);
+    }
+}
@@ -0,0 +1,62 @@
+/////////////////////////////////////////////////////////////////////////
+// SignalBatch - decodes the batched signal topics the robot publishes
+// when batch publishing is turned on in the SignalWrangler.
+//
+// Each group of signals has two topics:
+//   /SignalBatch/<group>/schema - JSON string, {"names":[...], "units":[...]}
+//   /SignalBatch/<group>/values - double[], one value per signal, in schema order
+//
+// Each value in a batch gets handed to the callback as if it came in
+// on the signal's own /Signals/<name>/value topic.
+/////////////////////////////////////////////////////////////////////////
+
+export const SIGNAL_BATCH_PREFIX = "/SignalBatch/";
+
+export class SignalBatchDecoder {
+
+    constructor(onSample_in) { //Gets called with (signal name, timestamp, value) for each signal in a batch
+        this.onSample = onSample_in;
+        this.schemas = new Map(); //group name -> schema object
+    }
+
+    isBatchTopic(topic){
+        return topic.name.startsWith(SIGNAL_BATCH_PREFIX);
+    }
+
+    // Call with every value update. Returns true if it was a batch topic
+    // (and has been handled), false if the caller should handle it.
+    handleData(topic, timestamp, value){
+        if(!this.isBatchTopic(topic)){
+            return false;
+        }
+
+        var path = topic.name.substring(SIGNAL_BATCH_PREFIX.length);
+        var split = path.lastIndexOf("/");
+        var group = path.substring(0, split);
+        var kind = path.substring(split + 1);
+
+        if(kind === "schema"){
+            try {
+                this.schemas.set(group, JSON.parse(value));
+            } catch (e) {
+                console.log("[SignalBatch] Ignoring bad schema for group " + group + ": " + e.toString());
+            }
+        } else if(kind === "values"){
+            var schema = this.schemas.get(group);
+            // Skip batches until we've got a schema that matches - the schema may
+            // have changed, and its update isn't guaranteed to arrive first.
+            if(schema && schema.names.length === value.length){
+                for(var i = 0; i < value.length; i++){
+                    this.onSample(schema.names[i], timestamp, value[i]);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Name of the per-signal topic a batched value stands in for
+    sigNameToValueTopic(name){
+        return "/Signals/" + name + "/value";
+    }
+
+}
@@ -6,6 +6,7 @@
 /////////////////////////////////////////////////////////////////////////
 
 import { NT4_Client } from "./nt4.js";
+import { SignalBatchDecoder, SIGNAL_BATCH_PREFIX } from "./signalBatch.js";
 
 export class SignalDAQNT4 {
 
@@ -31,6 +32,9 @@ export class SignalDAQNT4 {
 
         this.timeOffset = 0;
 
+        //When the robot is batching signals, samples come in on the batch topics instead
+        this.batchDecoder = new SignalBatchDecoder(this.batchSampleHandler.bind(this));
+
         this.nt4Client = new NT4_Client(window.location.hostname, 
                                         this.topicAnnounceHandler.bind(this), 
                                         this.topicUnannounceHandler.bind(this),
@@ -66,6 +70,9 @@ export class SignalDAQNT4 {
     }
 
     valueUpdateHandler(topic, timestamp, value){
+        if(this.batchDecoder.handleData(topic, timestamp, value)){
+            return;
+        }
         if(this.isSignalValueTopic(topic)){
             // Got a new sample
             var sigName = this.valueTopicToSigName(topic);
@@ -77,6 +84,14 @@ export class SignalDAQNT4 {
         }
     }
 
+    batchSampleHandler(sigName, timestamp, value){
+        if(this.daqRunning && this.daqSignalList.has(sigName)){
+            this.onNewSampleData(sigName, timestamp - this.timeOffset, value);
+            this.rxCount++;
+            this.updateStatusText();
+        }
+    }
+
     //Request a signal get added to the DAQ
     addSignal(signalNameIn){
         this.daqSignalList.add(signalNameIn);
@@ -97,6 +112,7 @@ export class SignalDAQNT4 {
         this.daqSignalList.forEach(sigName => {
             this.nt4Client.subscribeAllSamples([this.sigNameToValueTopic(sigName)]);
         });
+        this.nt4Client.subscribeAllSamples([SIGNAL_BATCH_PREFIX]);
         this.rxCount = 0;
         this.timeOffset = this.nt4Client.getServerTime_us();
         this.updateStatusText();
@@ -32,9 +32,14 @@ export class SignalDAQLocalFile {
     }
 
     load(fileobj){
-        var reader = new FileReader();
-        reader.readAsText(fileobj);
-        reader.onload = this.localFileLoadHandler.bind(this);
+        if(fileobj.name.endsWith(".gz")){
+            //Logs gzipped by the robot
+            this.loadGzip(fileobj);
+        } else {
+            var reader = new FileReader();
+            reader.readAsText(fileobj);
+            reader.onload = this.localFileLoadHandler.bind(this);
+        }
     }
 
     localFileLoadHandler(evt){
@@ -42,16 +47,42 @@ export class SignalDAQLocalFile {
         this.parseFileContents(all_lines);
     }
 
+    async loadGzip(fileobj){
+        //Read chunk by chunk, so a log cut off by a brownout still gives back
+        // everything up to where the compressed data stops.
+        var chunks = [];
+        var reader = fileobj.stream().pipeThrough(new DecompressionStream("gzip")).getReader();
+        try {
+            while(true){
+                var result = await reader.read();
+                if(result.done){
+                    break;
+                }
+                chunks.push(result.value);
+            }
+        } catch(err) {
+            console.log("Warning: " + fileobj.name + " ends early, keeping what could be read. " + err);
+        }
+        var all_lines = await new Blob(chunks).text();
+        this.parseFileContents(all_lines);
+    }
+
     parseFileContents(all_lines){
         var lines = (all_lines + '').split('\n');
         this.lineCount = 0;
 
-        if(lines.length > 3){
+        //Every complete line ends in a newline. If the last one doesn't, the
+        // log was cut off partway through writing it, so skip it.
+        var lastLine = lines.pop();
+        var cutOff = lastLine.length > 0;
+
+        if(lines.length > 2){
             this.parseHeaders(lines[0], lines[1]);
             for(var lineIdx = 2; lineIdx < lines.length; lineIdx++){
                 this.parseData(lines[lineIdx]);
             }
-            this.statusTextCallback("Parsed " + this.lineCount.toString() + " lines.")
+            this.statusTextCallback("Parsed " + this.lineCount.toString() + " lines."
+                                    + (cutOff ? " Skipped unfinished last line." : ""))
         } else {
             this.statusTextCallback("File Parse Error!");
             throw("Could not parse file! Not enough lines of content.");
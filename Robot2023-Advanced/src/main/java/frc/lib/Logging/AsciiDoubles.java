@@ -0,0 +1,170 @@
+package frc.lib.Logging;
+
+/**
+ * Writes doubles as ASCII text straight into a byte array, without making any Strings.
+ * 
+ * Output looks like Double.toString - "3.0", "-0.25", "1.5E-4", "2.0E7", "NaN", "Infinity" - and
+ * parses back the same everywhere Double.toString's output does. The difference is precision:
+ * values are rounded to SIGNIFICANT_DIGITS significant digits, which is as many as a double
+ * reliably holds, so small and large values keep their precision the same as everything else.
+ * Trailing zeros are trimmed, so short values come out exactly like Double.toString.
+ */
+final class AsciiDoubles {
+
+    static final int SIGNIFICANT_DIGITS = 15;
+    // 10^(SIGNIFICANT_DIGITS - 1), the smallest value with all the digits
+    private static final long SIGNIFICANT_SCALE = 100000000000000L;
+
+    /** Longest thing write() can produce, ex: "-1.23456789012345E-308" */
+    static final int MAX_CHARS = 24;
+
+    // Same range Double.toString writes without an exponent, as powers of ten
+    private static final int MIN_PLAIN_EXPONENT = -3;
+    private static final int MAX_PLAIN_EXPONENT = 7;
+
+    // Every power of ten a double holds exactly
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_POWER = POWERS_OF_TEN.length - 1;
+
+    // Digits of Double.MAX_VALUE, rounded down so they still parse back to a finite number
+    private static final int MAX_VALUE_EXPONENT = 308;
+    private static final long MAX_VALUE_DIGITS = 179769313486231L;
+
+    private static final byte[] NAN = { 'N', 'a', 'N' };
+    private static final byte[] INFINITY = { 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
+
+    private AsciiDoubles() {
+    }
+
+    /**
+     * Writes the value into dst starting at pos. dst needs MAX_CHARS bytes of room.
+     * 
+     * @return Position just past the last byte written
+     */
+    static int write(double val, byte[] dst, int pos) {
+        if (Double.isNaN(val)) {
+            return putBytes(NAN, dst, pos);
+        }
+        if ((Double.doubleToRawLongBits(val) & Long.MIN_VALUE) != 0) {
+            dst[pos++] = '-';
+            val = -val;
+        }
+        if (Double.isInfinite(val)) {
+            return putBytes(INFINITY, dst, pos);
+        }
+        if (val == 0.0) {
+            dst[pos++] = '0';
+            dst[pos++] = '.';
+            dst[pos++] = '0';
+            return pos;
+        }
+
+        // Digits are d.dddd x 10^exponent
+        int exponent = (int) Math.floor(Math.log10(val));
+        long digits = scaleDigits(val, exponent);
+        // log10 can be off by one right at powers of ten, and rounding can carry into a new digit
+        if (digits >= 10 * SIGNIFICANT_SCALE) {
+            exponent++;
+            digits = scaleDigits(val, exponent);
+        } else if (digits < SIGNIFICANT_SCALE) {
+            exponent--;
+            digits = scaleDigits(val, exponent);
+        }
+        if (exponent == MAX_VALUE_EXPONENT && digits > MAX_VALUE_DIGITS) {
+            digits = MAX_VALUE_DIGITS;
+        }
+
+        if (exponent >= MIN_PLAIN_EXPONENT && exponent < MAX_PLAIN_EXPONENT) {
+            return putDecimal(digits, exponent, dst, pos);
+        }
+        // E notation - one digit before the decimal point
+        pos = putDecimal(digits, 0, dst, pos);
+        dst[pos++] = 'E';
+        if (exponent < 0) {
+            dst[pos++] = '-';
+            exponent = -exponent;
+        }
+        return putLong(exponent, dst, pos);
+    }
+
+    // val's first SIGNIFICANT_DIGITS digits as an integer, rounded, if its leading digit is at 10^exponent
+    private static long scaleDigits(double val, int exponent) {
+        int power = SIGNIFICANT_DIGITS - 1 - exponent;
+        // Exact powers of ten, so there's only one rounding step unless val is tiny or huge
+        while (power > MAX_EXACT_POWER) {
+            val *= POWERS_OF_TEN[MAX_EXACT_POWER];
+            power -= MAX_EXACT_POWER;
+        }
+        while (power < -MAX_EXACT_POWER) {
+            val /= POWERS_OF_TEN[MAX_EXACT_POWER];
+            power += MAX_EXACT_POWER;
+        }
+        double scaled = power >= 0 ? val * POWERS_OF_TEN[power] : val / POWERS_OF_TEN[-power];
+        return Math.round(scaled);
+    }
+
+    // Writes digits (SIGNIFICANT_DIGITS of them) as a plain decimal, with the first digit at
+    // 10^exponent. Trailing zeros are trimmed, keeping at least one fraction digit.
+    private static int putDecimal(long digits, int exponent, byte[] dst, int pos) {
+        int count = SIGNIFICANT_DIGITS;
+        while (count > 1 && digits % 10 == 0) {
+            digits /= 10;
+            count--;
+        }
+
+        if (exponent < 0) {
+            // 0.000ddd
+            dst[pos++] = '0';
+            dst[pos++] = '.';
+            for (int i = -1; i > exponent; i--) {
+                dst[pos++] = '0';
+            }
+            return putDigits(digits, count, dst, pos);
+        }
+
+        int intDigits = exponent + 1;
+        if (count <= intDigits) {
+            // Whole number - ddd000.0
+            pos = putDigits(digits, count, dst, pos);
+            for (int i = count; i < intDigits; i++) {
+                dst[pos++] = '0';
+            }
+            dst[pos++] = '.';
+            dst[pos++] = '0';
+            return pos;
+        }
+
+        // ddd.ddd - write all the digits, then slide the fraction over to make room for the point
+        int end = putDigits(digits, count, dst, pos);
+        int point = pos + intDigits;
+        System.arraycopy(dst, point, dst, point + 1, end - point);
+        dst[point] = '.';
+        return end + 1;
+    }
+
+    // Writes the lowest count digits of val, with leading zeros if it has fewer
+    private static int putDigits(long val, int count, byte[] dst, int pos) {
+        for (int i = pos + count - 1; i >= pos; i--) {
+            dst[i] = (byte) ('0' + val % 10);
+            val /= 10;
+        }
+        return pos + count;
+    }
+
+    // Writes a non-negative integer
+    private static int putLong(long val, byte[] dst, int pos) {
+        int digits = 1;
+        for (long rest = val / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        return putDigits(val, digits, dst, pos);
+    }
+
+    private static int putBytes(byte[] src, byte[] dst, int pos) {
+        System.arraycopy(src, 0, dst, pos, src.length);
+        return pos + src.length;
+    }
+}
@@ -0,0 +1,270 @@
+package frc.lib.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads back a log written by BinarySignalLogWriter, one frame at a time. See that class for the
+ * file format.
+ * 
+ * A log cut off partway through a frame (robot lost power, etc.) reads fine up to the last
+ * complete frame, and wasTruncated() says so afterward.
+ * 
+ * Gzipped logs (.sigbin.gz) are unpacked into memory first. A gzipped log that was cut off, or
+ * that ends in garbage, keeps everything up to the point it stops making sense.
+ */
+class BinarySignalLogReader implements Closeable {
+
+    private final ByteBuffer buf;
+
+    private final String[] names;
+    private final String[] units;
+    private final int maskBytes;
+
+    private double time_s;
+    private final double[] values;
+    private final long[] present;
+    private final byte[] sampledMask;
+    private final byte[] changedMask;
+    private boolean truncated = false;
+
+    BinarySignalLogReader(Path file) throws IOException {
+        if (file.toString().endsWith(SignalLogOutput.GZIP_EXTENSION)) {
+            buf = ByteBuffer.wrap(inflate(file)).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        if (buf.remaining() < 10 || buf.getInt() != BinarySignalLogWriter.MAGIC) {
+            throw new IOException(file + " isn't a binary signal log");
+        }
+        short version = buf.getShort();
+        if (version != BinarySignalLogWriter.FORMAT_VERSION) {
+            throw new IOException(file + " is log format version " + version + ", this reader only knows "
+                    + BinarySignalLogWriter.FORMAT_VERSION);
+        }
+        int numSignals = buf.getInt();
+        if (numSignals < 0 || numSignals > buf.remaining() / 8) {
+            throw new IOException(file + " has a corrupt header");
+        }
+        names = new String[numSignals];
+        units = new String[numSignals];
+        for (int i = 0; i < numSignals; i++) {
+            names[i] = getString(file);
+            units[i] = getString(file);
+        }
+        maskBytes = (names.length + 7) / 8;
+        values = new double[names.length];
+        present = new long[(names.length + 63) / 64];
+        sampledMask = new byte[maskBytes];
+        changedMask = new byte[maskBytes];
+    }
+
+    String[] getNames() {
+        return names;
+    }
+
+    String[] getUnits() {
+        return units;
+    }
+
+    /**
+     * Moves on to the next frame.
+     * 
+     * @return false once there are no more complete frames
+     */
+    boolean next() {
+        if (buf.remaining() == 0) {
+            return false;
+        }
+        if (buf.remaining() < 4) {
+            truncated = true;
+            return false;
+        }
+        int frameBytes = buf.getInt();
+        if (frameBytes < 1 + 8 + maskBytes || frameBytes > buf.remaining()) {
+            // Either cut off partway through, or garbage. Nothing after this can be trusted.
+            truncated = true;
+            return false;
+        }
+        int frameEnd = buf.position() + frameBytes;
+        byte flags = buf.get();
+        time_s = buf.getDouble();
+        if ((flags & BinarySignalLogWriter.FLAG_SAME_SAMPLED) == 0) {
+            buf.get(sampledMask);
+        }
+        buf.get(changedMask);
+
+        Arrays.fill(present, 0);
+        for (int col = 0; col < names.length; col++) {
+            if (isChanged(col)) {
+                if (buf.position() + 8 > frameEnd) {
+                    truncated = true;
+                    return false;
+                }
+                values[col] = buf.getDouble();
+            }
+            if ((sampledMask[col >>> 3] & (1 << (col & 7))) != 0) {
+                present[col >>> 6] |= 1L << col;
+            }
+        }
+        buf.position(frameEnd);
+        return true;
+    }
+
+    double getTime() {
+        return time_s;
+    }
+
+    /**
+     * @return Latest value of every signal. Only the ones marked present were sampled in this frame.
+     */
+    double[] getValues() {
+        return values;
+    }
+
+    long[] getPresent() {
+        return present;
+    }
+
+    /**
+     * @return true if the signal was sampled in this frame with a different value than the last time
+     */
+    boolean isChanged(int col) {
+        return (changedMask[col >>> 3] & (1 << (col & 7))) != 0;
+    }
+
+    /**
+     * @return true if reading stopped at an incomplete frame at the end of the file, or the
+     *         gzipped data in it didn't end properly
+     */
+    boolean wasTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Nothing held open
+    }
+
+    /**
+     * Unpacks a whole gzipped file into memory. If the compressed data stops early or turns into
+     * garbage, returns whatever came out before that.
+     */
+    private byte[] inflate(Path file) throws IOException {
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        long failedReadStart = inflate(file, inflated, Long.MAX_VALUE);
+        if (failedReadStart >= 0) {
+            // Never closed properly. The compressed data either just stops, or runs into whatever
+            // was on the disk after it, ex: zeros the file system padded it with after a power cut.
+            // Running into garbage throws away everything unpacked by the same go of the inflater,
+            // so start over, handing it the file a byte at a time from where the read that went
+            // wrong started. The go that fails then has nothing good in it. Frames that didn't
+            // make it out whole get caught by next().
+            truncated = true;
+            inflated.reset();
+            inflate(file, inflated, failedReadStart);
+        }
+        return inflated.toByteArray();
+    }
+
+    /**
+     * Unpacks a gzipped file until its data ends or goes bad.
+     * 
+     * @param fastBytes How much of the file goes to the inflater in big reads, after that it gets
+     *                  a byte at a time
+     * @return Where in the file the last read before the data went bad or stopped started, or -1
+     *         if the data ended properly
+     * @throws IOException If the file can't be opened or doesn't start with a gzip header
+     */
+    private static long inflate(Path file, ByteArrayOutputStream out, long fastBytes) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        try (TricklingInputStream raw = new TricklingInputStream(Files.newInputStream(file), fastBytes)) {
+            InputStream in;
+            try {
+                in = new GZIPInputStream(raw, chunk.length);
+            } catch (EOFException e) {
+                // Cut off before the gzip header was all there
+                return 0;
+            }
+            try (in) {
+                int len;
+                while ((len = in.read(chunk)) > 0) {
+                    out.write(chunk, 0, len);
+                }
+            } catch (IOException e) {
+                return raw.lastReadStart;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Hands out a file in reads as big as asked for until fastBytes, then a byte at a time.
+     * Remembers where the last read started.
+     */
+    private static class TricklingInputStream extends FilterInputStream {
+        private final long fastBytes;
+        private long position = 0;
+        long lastReadStart = 0;
+
+        TricklingInputStream(InputStream in, long fastBytes_in) {
+            super(in);
+            fastBytes = fastBytes_in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            lastReadStart = position;
+            int b = in.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            lastReadStart = position;
+            int allowed = (position < fastBytes) ? (int) Math.min(len, fastBytes - position) : Math.min(len, 1);
+            int count = in.read(b, off, allowed);
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Only used on the trailer, past anything that matters
+            long skipped = in.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    private String getString(Path file) throws IOException {
+        int len = buf.getInt();
+        if (len < 0 || len > buf.remaining()) {
+            throw new IOException(file + " has a corrupt header");
+        }
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
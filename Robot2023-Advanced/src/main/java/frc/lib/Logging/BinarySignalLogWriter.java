@@ -0,0 +1,174 @@
+package frc.lib.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes signal logs in a compact binary format, much cheaper to produce on the RIO than CSV.
+ * Use SignalLogConverter to turn one into a CSV or a .wpilog afterward.
+ * 
+ * Everything is little endian. The file starts with a header:
+ * <pre>
+ * int    magic ("SIGB")
+ * short  format version
+ * int    number of signals n
+ * n x    (int length + UTF-8 bytes) signal name, then the same for its units
+ * </pre>
+ * Followed by one frame per timestamp:
+ * <pre>
+ * int    length of the rest of the frame in bytes
+ * byte   flags - bit 0 set if the same signals were sampled as in the previous frame
+ * double timestamp in seconds
+ * (n+7)/8 bytes - bitmap of which signals were sampled, left out if flag bit 0 is set
+ * (n+7)/8 bytes - bitmap of the sampled signals whose value changed since they were last written
+ * double value of each changed signal, in signal order
+ * </pre>
+ * Most signals hold still most of the time, and the same ones get sampled every loop, so most
+ * frames are just the timestamp, a bitmap, and a handful of values. A sampled signal that isn't
+ * marked changed has the same value it was last written with.
+ */
+class BinarySignalLogWriter implements SignalLogWriter {
+
+    static final String FILE_EXTENSION = ".sigbin";
+    static final int MAGIC = 0x42474953; // "SIGB" in file byte order
+    static final short FORMAT_VERSION = 1;
+    static final byte FLAG_SAME_SAMPLED = 0x01;
+
+    // Frames are collected here and written out in big chunks
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final SignalLogOutput out;
+    private ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private int numSignals;
+    private int maskBytes;
+    private byte[] sampledMask;
+    private byte[] prevSampledMask;
+    private byte[] changedMask;
+    // Raw bits of the last value written for each signal, to tell which ones changed
+    private long[] lastWritten;
+    private boolean[] everWritten;
+
+    /**
+     * @param compress gzip the file as it's written
+     */
+    BinarySignalLogWriter(Path file, boolean compress) throws IOException {
+        out = new SignalLogOutput(file, compress);
+    }
+
+    @Override
+    public void writeHeader(String[] names, String[] units) throws IOException {
+        numSignals = names.length;
+        maskBytes = (numSignals + 7) / 8;
+        sampledMask = new byte[maskBytes];
+        prevSampledMask = new byte[maskBytes];
+        changedMask = new byte[maskBytes];
+        lastWritten = new long[numSignals];
+        everWritten = new boolean[numSignals];
+
+        // A frame can never be bigger than every signal changing at once
+        int maxFrameBytes = 4 + 1 + 8 + 2 * maskBytes + 8 * numSignals;
+        if (buf.capacity() < maxFrameBytes) {
+            buf = ByteBuffer.allocate(maxFrameBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        buf.putInt(MAGIC);
+        buf.putShort(FORMAT_VERSION);
+        buf.putInt(numSignals);
+        for (int i = 0; i < numSignals; i++) {
+            putString(names[i]);
+            putString(units[i]);
+        }
+    }
+
+    @Override
+    public void writeRow(double time_s, double[] values, long[] present) throws IOException {
+        Arrays.fill(sampledMask, (byte) 0);
+        Arrays.fill(changedMask, (byte) 0);
+        int numChanged = 0;
+        for (int col = 0; col < numSignals; col++) {
+            if (SignalLogWriter.isPresent(present, col)) {
+                sampledMask[col >>> 3] |= (byte) (1 << (col & 7));
+                long bits = Double.doubleToRawLongBits(values[col]);
+                if (!everWritten[col] || bits != lastWritten[col]) {
+                    changedMask[col >>> 3] |= (byte) (1 << (col & 7));
+                    numChanged++;
+                }
+            }
+        }
+        boolean sameSampled = Arrays.equals(sampledMask, prevSampledMask);
+
+        int frameBytes = 1 + 8 + (sameSampled ? 0 : maskBytes) + maskBytes + 8 * numChanged;
+        if (buf.remaining() < 4 + frameBytes) {
+            writeBuffer();
+        }
+        buf.putInt(frameBytes);
+        buf.put(sameSampled ? FLAG_SAME_SAMPLED : 0);
+        buf.putDouble(time_s);
+        if (!sameSampled) {
+            buf.put(sampledMask);
+            System.arraycopy(sampledMask, 0, prevSampledMask, 0, maskBytes);
+        }
+        buf.put(changedMask);
+        for (int col = 0; col < numSignals; col++) {
+            if ((changedMask[col >>> 3] & (1 << (col & 7))) != 0) {
+                buf.putDouble(values[col]);
+                lastWritten[col] = Double.doubleToRawLongBits(values[col]);
+                everWritten[col] = true;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        flush();
+        out.force();
+    }
+
+    @Override
+    public long getFileBytes() {
+        return out.getFileBytes();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return out.getBytesIn() + buf.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buf.flip();
+        out.write(buf);
+        buf.clear();
+    }
+
+    private void putString(String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (buf.remaining() < 4 + bytes.length) {
+            writeBuffer();
+            if (buf.capacity() < 4 + bytes.length) {
+                buf = ByteBuffer.allocate(4 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+    }
+}
@@ -0,0 +1,136 @@
+package frc.lib.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Writes signal logs as CSV - the original casserole log format.
+ * 
+ * First line is signal names, second is units, then one line per timestamp. The first column is
+ * always time in seconds. Signals with no sample at that timestamp get an empty cell. Every line
+ * ends with a trailing comma.
+ * 
+ * Rows are encoded straight into a reusable byte buffer (see AsciiDoubles for how numbers are
+ * formatted) and written to the file (or the compressor) in big chunks, so writing a row
+ * takes time proportional to its length and doesn't create any garbage.
+ */
+class CsvSignalLogWriter implements SignalLogWriter {
+
+    static final String FILE_EXTENSION = ".csv";
+
+    // Rows are collected here and written out in big chunks
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final SignalLogOutput out;
+    private byte[] buf = new byte[WRITE_BUFFER_BYTES];
+    private ByteBuffer bufWrapper = ByteBuffer.wrap(buf);
+    private int bufLen = 0;
+    // Longest a row can possibly be
+    private int maxRowBytes = 0;
+
+    /**
+     * @param compress gzip the file as it's written
+     */
+    CsvSignalLogWriter(Path file, boolean compress) throws IOException {
+        out = new SignalLogOutput(file, compress);
+    }
+
+    @Override
+    public void writeHeader(String[] names, String[] units) throws IOException {
+        // Every cell is a number and a comma, plus the newline
+        maxRowBytes = (names.length + 1) * (AsciiDoubles.MAX_CHARS + 1) + 1;
+        if (buf.length < maxRowBytes) {
+            buf = new byte[maxRowBytes];
+            bufWrapper = ByteBuffer.wrap(buf);
+        }
+
+        // First column is always time, and always in seconds
+        writeHeaderLine("TIME", names);
+        writeHeaderLine("sec", units);
+    }
+
+    @Override
+    public void writeRow(double time_s, double[] values, long[] present) throws IOException {
+        if (buf.length - bufLen < maxRowBytes) {
+            writeBuffer();
+        }
+        int pos = bufLen;
+
+        // First column is always the timestamp
+        pos = AsciiDoubles.write(time_s, buf, pos);
+        buf[pos++] = ',';
+
+        // Write user-defined data, leaving the cell empty for signals that weren't sampled
+        for (int col = 0; col < values.length; col++) {
+            if (SignalLogWriter.isPresent(present, col)) {
+                pos = AsciiDoubles.write(values[col], buf, pos);
+            }
+            buf[pos++] = ',';
+        }
+
+        // End of line
+        buf[pos++] = '\n';
+        bufLen = pos;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        flush();
+        out.force();
+    }
+
+    @Override
+    public long getFileBytes() {
+        return out.getFileBytes();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return out.getBytesIn() + bufLen;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeHeaderLine(String first, String[] cells) throws IOException {
+        StringBuilder line = new StringBuilder(first).append(',');
+        for (String cell : cells) {
+            line.append(cell).append(',');
+        }
+        line.append('\n');
+        writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (bufLen == buf.length) {
+                writeBuffer();
+            }
+            int len = Math.min(bytes.length - offset, buf.length - bufLen);
+            System.arraycopy(bytes, offset, buf, bufLen, len);
+            bufLen += len;
+            offset += len;
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        bufWrapper.clear().limit(bufLen);
+        out.write(bufWrapper);
+        bufLen = 0;
+    }
+}
@@ -3,7 +3,11 @@ package frc.lib.Logging;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import frc.robot.Robot;
 
@@ -18,6 +22,18 @@ public class LogFileWrangler {
     // path where we expect all our log files to live at.
     public Path logFilePath;
 
+    // Retention policy - once there are more logs than this, or they take up more space than this,
+    // the oldest ones get deleted. Every segment of one log counts as one log, and a match is
+    // usually two logs (auto and teleop). The archive zip counts towards the space too. Zero or
+    // less means no limit.
+    static final long DEFAULT_MAX_TOTAL_BYTES = 1024L * 1024 * 1024;
+    static final int DEFAULT_MAX_LOGS = 100;
+    volatile long maxTotalBytes = DEFAULT_MAX_TOTAL_BYTES;
+    volatile int maxLogs = DEFAULT_MAX_LOGS;
+
+    // Set while a retention pass is running in the background
+    private final AtomicBoolean retentionRunning = new AtomicBoolean(false);
+
     /* Singleton infrastructure */
     private static LogFileWrangler instance;
 
@@ -64,8 +80,8 @@ public class LogFileWrangler {
      * prepare a zip file of all log files stored in the log directory
      */
     public Path createZip() {
-        Path zipFolder = Path.of(logFilePath.toString(), "archive");
-        Path zipPath = Path.of(zipFolder.toString(), "logs.zip");
+        Path zipFolder = getArchiveFolder();
+        Path zipPath = getZipPath();
 
         File dir = zipFolder.toFile();
         if (!dir.exists())
@@ -78,6 +94,164 @@ public class LogFileWrangler {
         return zipPath; 
     }
 
+    /**
+     * Sets how much gets kept in the log directory. See applyRetentionPolicy().
+     * 
+     * @param maxTotalBytes_in Total size of all logs to keep, or 0 for no limit
+     * @param maxLogs_in       Number of logs to keep, or 0 for no limit
+     */
+    public void setRetentionPolicy(long maxTotalBytes_in, int maxLogs_in) {
+        maxTotalBytes = maxTotalBytes_in;
+        maxLogs = maxLogs_in;
+    }
+
+    private Path getArchiveFolder() {
+        return Path.of(logFilePath.toString(), "archive");
+    }
+
+    private Path getZipPath() {
+        return Path.of(getArchiveFolder().toString(), "logs.zip");
+    }
+
+    /**
+     * Deletes the oldest logs until what's left fits the retention policy. Runs on its own
+     * low-priority thread and returns right away - if a pass is already running, this does
+     * nothing. The newest log (probably the one being written) is always kept. Once a log
+     * doesn't fit, it and every log older than it are deleted, even ones small enough to fit
+     * in what's left - so what's kept is always the newest logs, with no gaps. If the logs
+     * plus the archive zip are over the size limit, the zip goes first - it's only a copy of
+     * the logs, and createZip() can make it again.
+     */
+    public void applyRetentionPolicy() {
+        if (!retentionRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread retentionThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deleteOldLogs();
+                } finally {
+                    retentionRunning.set(false);
+                }
+            }
+        });
+        retentionThread.setName("Log File Retention");
+        retentionThread.setPriority(Thread.MIN_PRIORITY);
+        retentionThread.setDaemon(true);
+        retentionThread.start();
+    }
+
+    /**
+     * Does the work of applyRetentionPolicy() on the calling thread.
+     * 
+     * @return Number of files deleted
+     */
+    int deleteOldLogs() {
+        long maxBytes = maxTotalBytes;
+        int maxCount = maxLogs;
+        int deleted = 0;
+
+        try {
+            // Gather up the segments of each log
+            Map<String, List<File>> logs = new LinkedHashMap<String, List<File>>();
+            File[] files = logFilePath.toFile().listFiles();
+            if (files == null) {
+                return 0;
+            }
+            for (File file : files) {
+                if (file.isFile() && ZipUtils.isLogFile(file.getName())) {
+                    logs.computeIfAbsent(getLogName(file.getName()), k -> new ArrayList<File>()).add(file);
+                }
+            }
+
+            // Newest first, by when each log was last written to
+            List<List<File>> newestFirst = new ArrayList<List<File>>(logs.values());
+            newestFirst.sort(Comparator.comparingLong(LogFileWrangler::lastModified).reversed());
+
+            long keptBytes = 0;
+            File zip = getZipPath().toFile();
+            if (zip.isFile()) {
+                long logsBytes = 0;
+                for (List<File> log : newestFirst) {
+                    for (File file : log) {
+                        logsBytes += file.length();
+                    }
+                }
+                if (maxBytes > 0 && logsBytes + zip.length() > maxBytes) {
+                    System.out.println("Log retention: deleting " + zip.getName());
+                    if (zip.delete()) {
+                        deleted++;
+                    }
+                }
+                // Still counts if it couldn't be deleted
+                if (zip.isFile()) {
+                    keptBytes = zip.length();
+                }
+            }
+            int keptCount = 0;
+            boolean full = false;
+            for (List<File> log : newestFirst) {
+                long logBytes = 0;
+                for (File file : log) {
+                    logBytes += file.length();
+                }
+                full = full || (keptCount > 0
+                        && ((maxCount > 0 && keptCount >= maxCount) || (maxBytes > 0 && keptBytes + logBytes > maxBytes)));
+                if (!full) {
+                    keptBytes += logBytes;
+                    keptCount++;
+                } else {
+                    for (File file : log) {
+                        System.out.println("Log retention: deleting " + file.getName());
+                        if (file.delete()) {
+                            deleted++;
+                        }
+                    }
+                }
+            }
+        }
+        // Catch ALL the errors!!!
+        catch (Exception e) {
+            System.out.println("Error applying log retention policy: " + e.getMessage());
+        }
+
+        return deleted;
+    }
+
+    /**
+     * @return The log a file belongs to - its name without the extension or segment number
+     */
+    static String getLogName(String fileName) {
+        String name = fileName;
+        if (name.endsWith(SignalLogOutput.GZIP_EXTENSION)) {
+            name = name.substring(0, name.length() - SignalLogOutput.GZIP_EXTENSION.length());
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        int part = name.lastIndexOf("_part");
+        if (part > 0 && part + 5 < name.length()) {
+            boolean allDigits = true;
+            for (int i = part + 5; i < name.length(); i++) {
+                allDigits &= Character.isDigit(name.charAt(i));
+            }
+            if (allDigits) {
+                name = name.substring(0, part);
+            }
+        }
+        return name;
+    }
+
+    private static long lastModified(List<File> log) {
+        long newest = 0;
+        for (File file : log) {
+            newest = Math.max(newest, file.lastModified());
+        }
+        return newest;
+    }
+
     public void deleteLog(Path fileToDelete) {
         fileToDelete.toFile().delete();
     }
@@ -0,0 +1,151 @@
+package frc.lib.Logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size ring of (signal id, timestamp, value) samples headed for the file logger.
+ *
+ * All storage is allocated up front as primitive arrays, so adding a sample never creates
+ * an object. Producers claim a slot by bumping the head index, fill it in, then publish it
+ * by setting the slot's sequence number. The single consumer (the logger thread) only reads
+ * slots whose sequence says they're published, and hands them back the same way.
+ *
+ * Signals are mostly sampled from the main loop, but a few (ex: RIO load monitor) come from
+ * their own threads, so claiming a slot is a compare-and-set rather than a plain write.
+ *
+ * When the ring is full, new samples are dropped and counted - the main loop never waits on
+ * the logger.
+ */
+class SampleRing {
+
+    /** Called for each sample drained out of the ring */
+    interface SampleConsumer {
+        void accept(int signalId, double time_s, double value);
+    }
+
+    private final int capacity;
+    private final int mask;
+
+    private final int[] signalIds;
+    private final double[] times;
+    private final double[] values;
+
+    // Per slot - equal to the position a producer may claim it at, or that position + 1 once it's
+    // been written and is ready to be read.
+    private final AtomicLongArray sequence;
+
+    // Next position producers will claim
+    private final AtomicLong head = new AtomicLong();
+    // Next position the consumer will read. Only the consumer writes it.
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * @param capacity Number of samples the ring holds. Must be a power of two.
+     */
+    SampleRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Sample ring capacity must be a power of two, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        signalIds = new int[capacity];
+        times = new double[capacity];
+        values = new double[capacity];
+        sequence = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a sample. May be called from any thread. Never blocks or allocates.
+     *
+     * @return true if the sample was stored, false if the ring was full and it was dropped
+     */
+    boolean offer(int signalId, double time_s, double value) {
+        long pos = head.get();
+        while (true) {
+            int slot = (int) pos & mask;
+            long seq = sequence.get(slot);
+            if (seq == pos) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    signalIds[slot] = signalId;
+                    times[slot] = time_s;
+                    values[slot] = value;
+                    sequence.set(slot, pos + 1);
+                    return true;
+                }
+                // Another producer got this slot first, try the next one
+                pos = head.get();
+            } else if (seq < pos) {
+                // Consumer hasn't freed this slot up yet - full
+                droppedCount.incrementAndGet();
+                return false;
+            } else {
+                // Head moved on since we read it
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to maxSamples published samples to the consumer, oldest first. Consumer thread only.
+     *
+     * @return Number of samples drained
+     */
+    int drain(SampleConsumer consumer, int maxSamples) {
+        long pos = tail.get();
+        int count = 0;
+        while (count < maxSamples) {
+            int slot = (int) pos & mask;
+            if (sequence.get(slot) != pos + 1) {
+                // Empty, or the next producer hasn't finished writing yet
+                break;
+            }
+            consumer.accept(signalIds[slot], times[slot], values[slot]);
+            // Free the slot for the producer that wraps around to it
+            sequence.set(slot, pos + capacity);
+            pos++;
+            count++;
+        }
+        tail.lazySet(pos);
+        return count;
+    }
+
+    /**
+     * @return Total samples ever stored, counting ones still being written. Samples stored
+     *         after this is read come out of drain() after every sample stored before it.
+     */
+    long getWritePosition() {
+        return head.get();
+    }
+
+    /**
+     * @return Total samples ever drained
+     */
+    long getReadPosition() {
+        return tail.get();
+    }
+
+    /**
+     * @return Approximate number of samples waiting to be drained
+     */
+    int size() {
+        long size = head.get() - tail.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Total samples dropped because the ring was full
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
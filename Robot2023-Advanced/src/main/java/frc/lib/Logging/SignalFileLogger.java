@@ -1,27 +1,21 @@
 package frc.lib.Logging;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.TimeZone;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 import edu.wpi.first.wpilibj.DriverStation;
-import frc.lib.Signal.DataSample;
 import frc.lib.Signal.Signal;
 import frc.lib.Signal.SignalWrangler;
 import frc.robot.Robot;
 
 import java.util.Arrays;
-import java.io.BufferedWriter;
 import java.io.File;
 
 /*
@@ -65,26 +59,139 @@ import java.io.File;
  * <li>Post-match or -practice, extract the data logs from the USB drive(maybe
  * using FTP?) and view with excel or your favourite software.</li>
  * </ol>
+ * Logs are CSV by default. Call setFormat(Format.BINARY) to write the much smaller and
+ * cheaper binary format instead, then convert with SignalLogConverter after the match.
+ * <br>
+ * Logs are gzipped as they're written (.csv.gz / .sigbin.gz) unless setCompression(false) is
+ * called. Compression happens on the logger thread. A long log is split into segments
+ * (_part2, _part3, ...) once the current one gets too big or too old - see setSegmentLimits().
+ * Each segment has its own header, so it can be opened on its own. Whenever a log or segment
+ * is closed, the LogFileWrangler gets a chance to clean out old logs.
+ * <br>
+ * All file work happens on the logger thread. Starting and stopping a log just queues up a
+ * note for it, marked with how far the sample queue had gotten, and wakes it up, so the robot
+ * thread never waits on the disk. Samples queued before the note go in the old log, and ones
+ * after in the new. Notes are handled in order, so starting and stopping several times before
+ * the logger thread gets around to it still makes every log.
+ * The logger thread wakes every DRAIN_PERIOD_MS, or sooner once DRAIN_WAKE_SAMPLES samples
+ * are waiting, and writes them out DRAIN_BATCH_SAMPLES at a time. createMetricSignals() adds
+ * signals for how well it's keeping up.
+ * <br>
+ * So a brownout or crash doesn't take the whole match with it, the logger thread also flushes
+ * everything written so far and forces it onto the disk every so often - see setSyncPolicy().
+ * At most that much data is lost, plus whatever was still waiting in the sample queue. A
+ * binary log cut off partway through a frame reads fine up to that frame (see
+ * BinarySignalLogReader), and the web stripchart skips an unfinished last line in a CSV.
  * 
  * 
  */
 
 public class SignalFileLogger {
 
-    public Path curLogFile = null;
+    public volatile Path curLogFile = null;
+
+    /** File formats the logger can write */
+    public enum Format {
+        CSV, BINARY
+    }
+
+    // Format for the next log opened
+    volatile Format format = Format.CSV;
+    // Whether the next log opened gets gzipped
+    volatile boolean compress = true;
+
+    // Start a new segment once the current one has this many bytes on disk, or covers this much
+    // time. Zero or less means no limit.
+    static final long DEFAULT_MAX_SEGMENT_BYTES = 8 * 1024 * 1024;
+    static final double DEFAULT_MAX_SEGMENT_DURATION_S = 5 * 60.0;
+    volatile long maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+    volatile double maxSegmentDuration_s = DEFAULT_MAX_SEGMENT_DURATION_S;
+
+    // Flush and force the log to disk once it's been this long, or this many bytes have been
+    // written, since the last time. Zero or less turns that trigger off.
+    static final long DEFAULT_SYNC_PERIOD_MS = 500;
+    static final long DEFAULT_SYNC_BYTES = 256 * 1024;
+    volatile long syncPeriod_ms = DEFAULT_SYNC_PERIOD_MS;
+    volatile long syncBytes = DEFAULT_SYNC_BYTES;
+    long lastSyncTime_ns;
+    long bytesAtLastSync;
 
     // Handle to the actual file being logged to
-    BufferedWriter log_file = null;
+    SignalLogWriter log_file = null;
+
+    // Log file column for each signal ID, -1 for signals registered after the log was opened
+    int[] logIdxLookup = new int[0];
 
-    Hashtable<Signal, Integer> logIdxLookup;
+    // What the open log was started with, to open more segments of it the same way
+    String logFolder;
+    String logBaseName;
+    Format logFormat;
+    boolean logCompressed;
+    String[] logNames;
+    String[] logUnits;
+    int segmentNum;
+    double segmentStartTime;
 
     double curTimestamp = -1.0;
-    String[] logLine;
+    // Samples for the current timestamp, by column, and a bitmap of which columns have one
+    double[] rowValues;
+    long[] rowPresent;
+
+    public volatile boolean loggingActive = false;
+
+    /** What a log gets opened with, captured on the robot thread when logging starts */
+    static class LogRequest {
+        final String prefix;
+        final Signal[] signals;
 
-    Lock fileLoggerStateLock;
-    public boolean loggingActive = false;
+        LogRequest(String prefix_in, Signal[] signals_in) {
+            prefix = prefix_in;
+            signals = signals_in;
+        }
+    }
+
+    /** A log being started or stopped, and where in the sample queue that happened */
+    static class LogChange {
+        // Log to open, or null to just close the current one
+        final LogRequest request;
+        // Samples the queue had taken in when the change was made. Ones before go in the old log.
+        final long ringPosition;
 
-    BlockingQueue<DataSample> sampleQueue;
+        LogChange(LogRequest request_in, long ringPosition_in) {
+            request = request_in;
+            ringPosition = ringPosition_in;
+        }
+    }
+
+    // Starts and stops the logger thread hasn't gotten to yet, oldest first. Added to from the
+    // robot thread. Kept apart from the samples, so a full queue can't lose one.
+    final ConcurrentLinkedQueue<LogChange> logChanges = new ConcurrentLinkedQueue<LogChange>();
+    // Log the logger thread has open right now. Logger thread only.
+    LogRequest openLog = null;
+
+    // Samples waiting for the logger thread. About 1.5 seconds of a few hundred signals at 50Hz.
+    static final int SAMPLE_RING_CAPACITY = 16384;
+    SampleRing sampleRing;
+    long reportedDroppedCount = 0;
+    final SampleRing.SampleConsumer sampleWriter = this::writeLogData;
+
+    // Longest the logger thread sleeps before draining whatever's waiting
+    static final long DRAIN_PERIOD_MS = 100;
+    // Producers wake the logger thread early once this many samples are waiting
+    static final int DRAIN_WAKE_SAMPLES = SAMPLE_RING_CAPACITY / 4;
+    // Most samples written between checks for a log to open or close
+    static final int DRAIN_BATCH_SAMPLES = 1024;
+
+    Thread monitorThread;
+    // Set while the logger thread is asleep waiting for samples
+    volatile boolean loggerWaiting = false;
+    // How long the logger thread's last pass took, from waking up to going back to sleep
+    volatile double lastDrainTime_ms = 0;
+
+    // Logger health, as signals. Null until createMetricSignals() is called.
+    Signal queueDepthSig;
+    Signal drainTimeSig;
+    Signal droppedSamplesSig;
 
     ///////////////////////////////////////////////////////////////////
     // Public API
@@ -94,34 +201,20 @@ public class SignalFileLogger {
      * Constructor
      */
     public SignalFileLogger() {
-        sampleQueue = new LinkedBlockingQueue<DataSample>();
-
-        fileLoggerStateLock = new ReentrantLock();
+        sampleRing = new SampleRing(SAMPLE_RING_CAPACITY);
 
         // Kick off monitor in brand new thread.
         // Thanks to Team 254 for an example of how to do this!
-        Thread monitorThread = new Thread(new Runnable() {
+        monitorThread = new Thread(new Runnable() {
             @Override
             public void run() {
                 while (true) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-
-                    fileLoggerStateLock.lock();
-                    try {
-                        if (loggingActive) {
-                            DataSample samp = sampleQueue.poll();
-                            while (samp != null) {
-                                writeLogData(samp);
-                                samp = sampleQueue.poll();
-                            }
-                        }
-                    } finally {
-                        fileLoggerStateLock.unlock();
-                    }
+                    waitForSamples();
+
+                    long startTime = System.nanoTime();
+                    drainSamples();
+                    reportDroppedSamples();
+                    lastDrainTime_ms = (System.nanoTime() - startTime) / 1.0e6;
                 }
             }
         });
@@ -132,85 +225,257 @@ public class SignalFileLogger {
         monitorThread.start();
     }
 
+    /**
+     * Picks the file format. Takes effect the next time a log is opened.
+     */
+    public void setFormat(Format format_in) {
+        format = format_in;
+    }
+
+    /**
+     * Turns gzip compression of log files on or off. Takes effect the next time a log is opened.
+     */
+    public void setCompression(boolean compress_in) {
+        compress = compress_in;
+    }
+
+    /**
+     * Sets when the open log moves on to a new segment file. Checked between rows, so a segment
+     * can run over by a row or so.
+     * 
+     * @param maxBytes      Size on disk (after compression) to start a new segment at, or 0 for no limit
+     * @param maxDuration_s Time covered by one segment, in seconds, or 0 for no limit
+     */
+    public void setSegmentLimits(long maxBytes, double maxDuration_s) {
+        maxSegmentBytes = maxBytes;
+        maxSegmentDuration_s = maxDuration_s;
+    }
+
+    /**
+     * Sets how often the open log gets flushed and forced onto the disk, which bounds how much
+     * is lost if the robot loses power. Every write since the last sync goes to disk at once on
+     * the logger thread, so the robot thread never pays for it. The logger thread only wakes
+     * every DRAIN_PERIOD_MS, so syncing more often than that won't happen.
+     * 
+     * @param syncPeriod_ms_in Longest time between syncs, in milliseconds, or 0 for no limit
+     * @param syncBytes_in     Most log data written (before compression) between syncs, or 0 for no limit
+     */
+    public void setSyncPolicy(long syncPeriod_ms_in, long syncBytes_in) {
+        syncPeriod_ms = syncPeriod_ms_in;
+        syncBytes = syncBytes_in;
+    }
+
     public void startLoggingAuto() {
-        fileLoggerStateLock.lock();
-        try {
-            if (!loggingActive) {
-                init("AUTO");
-                sampleQueue.clear();
-                loggingActive = true;
-            }
-        } finally {
-            fileLoggerStateLock.unlock();
-        }
+        startLogging("AUTO");
     }
 
     public void startLoggingTeleop() {
-        fileLoggerStateLock.lock();
-        try {
-            if (!loggingActive) {
-                init("TELEOP");
-                sampleQueue.clear();
-                loggingActive = true;
-            }
-        } finally {
-            fileLoggerStateLock.unlock();
-        }
+        startLogging("TELEOP");
     }
 
+    /**
+     * Closes the current log, once the logger thread has written out everything queued before
+     * now. Returns right away.
+     */
     public void stopLogging() {
-        fileLoggerStateLock.lock();
-        try {
-            if (loggingActive) {
-                loggingActive = false;
-                forceSync();
-                close();
-            }
-        } finally {
-            fileLoggerStateLock.unlock();
+        if (loggingActive) {
+            loggingActive = false;
+            logChanges.add(new LogChange(null, sampleRing.getWritePosition()));
+            wakeLogger();
         }
     }
 
-    // This method may be called from any thread
-    public void addSample(DataSample samp_in) {
+    /**
+     * Queues up one sample to be written to file. May be called from any thread.
+     * Doesn't allocate or block - if the logger thread has fallen too far behind, the
+     * sample is dropped and counted instead.
+     * 
+     * @param signalId ID the signal got when it was registered with the SignalWrangler
+     * @param time_s   Sample time in seconds
+     * @param value    Sample value
+     */
+    public void addSample(int signalId, double time_s, double value) {
         if (loggingActive) {
-            sampleQueue.add(samp_in);
+            sampleRing.offer(signalId, time_s, value);
+            if (loggerWaiting && sampleRing.size() >= DRAIN_WAKE_SAMPLES) {
+                wakeLogger();
+            }
         }
     }
 
     public int getSampleQueueLength() {
-        return sampleQueue.size();
+        return sampleRing.size();
+    }
+
+    /**
+     * @return Total number of samples thrown away because the logger couldn't keep up
+     */
+    public long getDroppedSampleCount() {
+        return sampleRing.getDroppedCount();
+    }
+
+    /**
+     * @return How long the logger thread's last pass over the queue took, in milliseconds
+     */
+    public double getLastDrainTime_ms() {
+        return lastDrainTime_ms;
+    }
+
+    /**
+     * Makes signals for the logger's queue depth, drain time and dropped samples. Has to wait
+     * until after the SignalWrangler exists, so the SignalWrangler calls it when registering
+     * signals. Does nothing if they've already been made.
+     */
+    public void createMetricSignals() {
+        if (queueDepthSig == null) {
+            queueDepthSig = new Signal("Signal Logger Queue Depth", "samples");
+            drainTimeSig = new Signal("Signal Logger Drain Time", "ms");
+            droppedSamplesSig = new Signal("Signal Logger Dropped Samples", "samples");
+        }
+    }
+
+    /**
+     * Samples the signals from createMetricSignals(), if they've been made.
+     */
+    public void sampleMetricSignals(double time_s) {
+        if (queueDepthSig != null) {
+            queueDepthSig.addSample(time_s, sampleRing.size());
+            drainTimeSig.addSample(time_s, lastDrainTime_ms);
+            droppedSamplesSig.addSample(time_s, sampleRing.getDroppedCount());
+        }
     }
 
     ///////////////////////////////////////////////////////////////////
     // Private logging implementation
     ///////////////////////////////////////////////////////////////////
 
-    private void writeLogData(DataSample samp_in) {
-        double timestamp_s = samp_in.getSampleTime_s();
-        double val = samp_in.getVal();
-        Integer idx = logIdxLookup.get(samp_in.getParentSignal());
+    private void startLogging(String logPrefix) {
+        if (!loggingActive) {
+            // Grab the signals to log now, so the logger thread doesn't race anything registering more
+            List<Signal> allSigs = SignalWrangler.getInstance().getAllSignals();
+            LogRequest request = new LogRequest(logPrefix, allSigs.toArray(new Signal[0]));
+            logChanges.add(new LogChange(request, sampleRing.getWritePosition()));
+            loggingActive = true;
+            wakeLogger();
+        }
+    }
+
+    private void wakeLogger() {
+        loggerWaiting = false;
+        LockSupport.unpark(monitorThread);
+    }
+
+    /**
+     * Sleeps the logger thread until there's enough waiting to write, a log to open or close,
+     * or DRAIN_PERIOD_MS is up.
+     */
+    private void waitForSamples() {
+        loggerWaiting = true;
+        if (sampleRing.size() < DRAIN_WAKE_SAMPLES && logChanges.isEmpty()) {
+            LockSupport.parkNanos(this, DRAIN_PERIOD_MS * 1000000L);
+        }
+        loggerWaiting = false;
+    }
+
+    /**
+     * Writes out everything waiting in the sample queue, in batches, opening and closing logs
+     * along the way as each queued LogChange is reached. Logger thread only.
+     */
+    private void drainSamples() {
+        while (true) {
+            LogChange change = logChanges.peek();
+            int maxSamples = DRAIN_BATCH_SAMPLES;
+            if (change != null) {
+                // Stop at the change, so later samples go in the next log
+                maxSamples = (int) Math.min(maxSamples, change.ringPosition - sampleRing.getReadPosition());
+            }
+            int drained = sampleRing.drain(sampleWriter, maxSamples);
+            syncIfDue();
+            if (change != null && sampleRing.getReadPosition() >= change.ringPosition) {
+                logChanges.poll();
+                updateOpenLog(change.request);
+            } else if (drained < maxSamples) {
+                // Caught up
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the open log, if any, then opens the requested one. Logger thread only.
+     * 
+     * @param wanted Log to open next, or null for none
+     */
+    private void updateOpenLog(LogRequest wanted) {
+        if (openLog != null) {
+            if (curTimestamp != -1.0) {
+                // Last row never got a later timestamp to push it out
+                writeData();
+            }
+            forceSync();
+            close();
+            LogFileWrangler.getInstance().applyRetentionPolicy();
+        }
+        openLog = wanted;
+        if (wanted != null) {
+            init(wanted);
+        }
+    }
+
+    /**
+     * Syncs the log if it's been long enough, or enough has been written, since the last time.
+     */
+    private void syncIfDue() {
+        if (log_file == null) {
+            return;
+        }
+        long period_ms = syncPeriod_ms;
+        long bytes = syncBytes;
+        long written = log_file.getBytesWritten() - bytesAtLastSync;
+        boolean timeUp = period_ms > 0 && System.nanoTime() - lastSyncTime_ns >= period_ms * 1000000L;
+        if ((timeUp && written > 0) || (bytes > 0 && written >= bytes)) {
+            forceSync();
+        }
+    }
+
+    private void reportDroppedSamples() {
+        long dropped = sampleRing.getDroppedCount();
+        if (dropped != reportedDroppedCount) {
+            System.out.println("Warning: log sample buffer full, dropped " + Long.toString(dropped - reportedDroppedCount)
+                    + " samples (" + Long.toString(dropped) + " total)");
+            reportedDroppedCount = dropped;
+        }
+    }
+
+    private void writeLogData(int signalId, double timestamp_s, double val) {
+        if (openLog == null) {
+            // Straggler from just after the last log was stopped
+            return;
+        }
+
+        int idx = (signalId >= 0 && signalId < logIdxLookup.length) ? logIdxLookup[signalId] : -1;
 
-        if (idx != null) {
+        if (idx >= 0) {
             if (curTimestamp == -1.0) {
                 // Very first call for this log. Mark the initial timestamp
                 curTimestamp = timestamp_s;
             }
 
-            if (timestamp_s == curTimestamp) {
-                // Still logging the present timestamp. Add value into the logLine array.
-                logLine[idx] = Double.toString(val);
-            } else {
-                // We've moved on to the next timestamp. Write the line to disk and then add the
-                // valuel to the logLine array
+            if (timestamp_s != curTimestamp) {
+                // We've moved on to the next timestamp. Write the row to disk and start a new one
                 writeData();
-                Arrays.fill(logLine, "");
+                Arrays.fill(rowPresent, 0);
                 curTimestamp = timestamp_s;
-                logLine[idx] = Double.toString(val);
+                if (isSegmentFull()) {
+                    nextSegment();
+                }
             }
+            rowValues[idx] = val;
+            rowPresent[idx >>> 6] |= 1L << idx;
         } else {
+            Signal sig = SignalWrangler.getInstance().getSignalFromId(signalId);
             System.out.println("Developer Error - Attempt to log value from signal \""
-                    + samp_in.getParentSignal().getName()
+                    + (sig != null ? sig.getName() : Integer.toString(signalId))
                     + "\", which was not instantiated prior to opening the log. It is not allowed to instantiate new signals while a log is being recorded!");
         }
     }
@@ -219,52 +484,76 @@ public class SignalFileLogger {
      * Determines a unique file name, and opens a file in the data captures
      * directory and writes the initial lines to it.
      * 
-     * @param data_fields  A set of strings for signal names to write into the file
-     * @param units_fields A set of strings for signal units to write into the file
+     * @param request Prefix for the file name, and the signals to log
      * @return 0 on successful log open, -1 on failure
      */
-    private int init(String logPrefix) {
+    private int init(LogRequest request) {
 
-        // Sample the current set of signals from the DataServer
-        List<Signal> allSigs = SignalWrangler.getInstance().getAllSignals();
-        int numSigs = allSigs.size();
-        logIdxLookup = new Hashtable<Signal, Integer>(numSigs * 2);
+        // The set of signals from the DataServer when logging was started
+        Signal[] allSigs = request.signals;
+        String logPrefix = request.prefix;
+        int numSigs = allSigs.length;
+        int[] newIdxLookup = new int[numSigs];
+        Arrays.fill(newIdxLookup, -1);
 
         // Set up local lists of data names and units
         String[] data_fields = new String[numSigs];
         String[] units_fields = new String[numSigs];
 
         for (int sigIter = 0; sigIter < numSigs; sigIter++) {
-            data_fields[sigIter] = allSigs.get(sigIter).getName();
-            units_fields[sigIter] = allSigs.get(sigIter).getUnits();
-            logIdxLookup.put(allSigs.get(sigIter), sigIter);
+            data_fields[sigIter] = allSigs[sigIter].getName();
+            units_fields[sigIter] = allSigs[sigIter].getUnits();
+            newIdxLookup[allSigs[sigIter].getId()] = sigIter;
         }
+        logIdxLookup = newIdxLookup;
 
-        logLine = new String[numSigs];
-        Arrays.fill(logLine, "");
+        rowValues = new double[numSigs];
+        rowPresent = new long[(numSigs + 63) / 64];
 
         curTimestamp = -1.0;
 
-        try {
+        logFolder = LogFileWrangler.getInstance().logFilePath.toString();
+        logFormat = format;
+        logCompressed = compress;
+        logNames = data_fields;
+        logUnits = units_fields;
+        segmentNum = 1;
+
+        // Determine a unique file name
+        if (Robot.isReal()) {
+            logBaseName = "log_" + DriverStation.getEventName() + "_"
+                    + DriverStation.getMatchType() + "_"
+                    + Integer.toString(DriverStation.getMatchNumber()) + "_" + getDateTimeString()
+                    + "_" + logPrefix;
+        } else {
+            logBaseName = "log_" + getDateTimeString() + "_" + logPrefix;
+        }
 
-            String folderName = LogFileWrangler.getInstance().logFilePath.toString();
-            String filename = "";
-            // Determine a unique file name
-            if (Robot.isReal()) {
-                filename = "log_" + DriverStation.getEventName() + "_"
-                        + DriverStation.getMatchType() + "_"
-                        + Integer.toString(DriverStation.getMatchNumber()) + "_" + getDateTimeString()
-                        + "_" + logPrefix + ".csv";
-            } else {
-                filename = "log_" + getDateTimeString() + "_" + logPrefix + ".csv";
-            }
+        File dir = new File(logFolder);
+        if (!dir.exists())
+            dir.mkdirs();
 
-            File dir = new File(folderName);
-            if (!dir.exists())
-                dir.mkdirs();
+        return openSegment();
+    }
 
-            curLogFile = Path.of(folderName, filename);
-            
+    /**
+     * Opens segment number segmentNum of the current log and writes its header.
+     * 
+     * @return 0 on successful open, -1 on failure
+     */
+    private int openSegment() {
+        try {
+            String extension = (logFormat == Format.BINARY) ? BinarySignalLogWriter.FILE_EXTENSION
+                    : CsvSignalLogWriter.FILE_EXTENSION;
+            if (logCompressed) {
+                extension += SignalLogOutput.GZIP_EXTENSION;
+            }
+            String filename = logBaseName;
+            if (segmentNum > 1) {
+                filename += "_part" + Integer.toString(segmentNum);
+            }
+            curLogFile = Path.of(logFolder, filename + extension);
+            segmentStartTime = curTimestamp;
 
             System.out.println("Initalizing Log file " + curLogFile.toAbsolutePath().toString());
 
@@ -275,28 +564,16 @@ public class SignalFileLogger {
             }
 
             // Open File
-            FileWriter fstream = new FileWriter(curLogFile.toFile(), true);
-            log_file = new BufferedWriter(fstream);
-
-            // First column is always time
-            log_file.write("TIME,");
-
-            // Write user-defined header line
-            for (String header_txt : data_fields) {
-                log_file.write(header_txt + ",");
+            if (logFormat == Format.BINARY) {
+                log_file = new BinarySignalLogWriter(curLogFile, logCompressed);
+            } else {
+                log_file = new CsvSignalLogWriter(curLogFile, logCompressed);
             }
-            // End of line
-            log_file.write("\n");
 
-            // First column is always in seconds
-            log_file.write("sec,");
-
-            // Write user-defined units line
-            for (String header_txt : units_fields) {
-                log_file.write(header_txt + ",");
-            }
-            // End of line
-            log_file.write("\n");
+            // Write names and units
+            log_file.writeHeader(logNames, logUnits);
+            lastSyncTime_ns = System.nanoTime();
+            bytesAtLastSync = 0;
 
         }
         // Catch ALL the errors!!!
@@ -308,31 +585,37 @@ public class SignalFileLogger {
 
     }
 
+    private boolean isSegmentFull() {
+        if (segmentStartTime == -1.0) {
+            // Opened before the first sample came in
+            segmentStartTime = curTimestamp;
+        }
+        long maxBytes = maxSegmentBytes;
+        double maxDuration_s = maxSegmentDuration_s;
+        return (maxBytes > 0 && log_file != null && log_file.getFileBytes() >= maxBytes)
+                || (maxDuration_s > 0 && curTimestamp - segmentStartTime >= maxDuration_s);
+    }
+
     /**
-     * Write a list of doubles to the output file, assuming it's open. Creates a new
-     * line in the .csv log file.
+     * Closes the current segment and carries on logging into a new one.
+     */
+    private void nextSegment() {
+        close();
+        segmentNum++;
+        openSegment();
+        LogFileWrangler.getInstance().applyRetentionPolicy();
+    }
+
+    /**
+     * Write the current row of samples to the output file, assuming it's open. Creates a new
+     * line in the .csv log file, or a new frame in the binary one.
      * 
      * @return 0 on write success, -1 on failure.
      */
     private int writeData() {
-        String line_to_write = "";
-
         try {
-
-            // First column is always the timestamp
-            line_to_write = line_to_write.concat(Double.toString(curTimestamp) + ",");
-
-            // Write user-defined data
-            for (String data_val : logLine) {
-                line_to_write = line_to_write.concat(data_val + ",");
-            }
-
-            // End of line
-            line_to_write = line_to_write.concat("\n");
-
-            // write constructed string out to file
             if (log_file != null) {
-                log_file.write(line_to_write);
+                log_file.writeRow(curTimestamp, rowValues, rowPresent);
             } else {
                 System.out.println("Warning: attempt to write to a closed log!");
             }
@@ -351,14 +634,17 @@ public class SignalFileLogger {
      * Clears the buffer in memory and forces things to file. Generally a good idea
      * to use this as infrequently as possible (because it increases logging
      * overhead), but definitely use it before the roboRIO might crash without a
-     * proper call to the close() method (during brownout, maybe?)
+     * proper call to the close() method (during brownout, maybe?). The logger thread
+     * calls it as often as setSyncPolicy() says to.
      * 
      * @return Returns 0 on flush success or -1 on failure.
      */
     private int forceSync() {
         try {
             if (log_file != null) {
-                log_file.flush();
+                log_file.sync();
+                lastSyncTime_ns = System.nanoTime();
+                bytesAtLastSync = log_file.getBytesWritten();
             } else {
                 System.out.println("Warning: attempt to flush a closed log!");
             }
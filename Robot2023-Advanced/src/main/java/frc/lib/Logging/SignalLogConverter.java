@@ -0,0 +1,118 @@
+package frc.lib.Logging;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Desktop tool to convert binary signal logs (.sigbin, or .sigbin.gz if the logger was
+ * compressing) from the robot into formats other tools understand. Run it with
+ * ./gradlew convertSignalLog -Plog=path/to/file.sigbin
+ * 
+ * Writes the result next to the input by default:
+ * <ul>
+ * <li>.csv - exactly what the logger would have written in CSV mode, so existing tooling keeps working</li>
+ * <li>.wpilog - one double entry per signal under /Signals/, openable in AdvantageScope and friends</li>
+ * </ul>
+ */
+public class SignalLogConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: SignalLogConverter <log.sigbin[.gz]> [output.csv[.gz]|output.wpilog]");
+            System.out.println("With no output given, writes both a .csv and a .wpilog next to the input.");
+            System.exit(1);
+        }
+
+        Path in = Path.of(args[0]);
+        String baseName = in.getFileName().toString();
+        if (baseName.endsWith(SignalLogOutput.GZIP_EXTENSION)) {
+            baseName = baseName.substring(0, baseName.length() - SignalLogOutput.GZIP_EXTENSION.length());
+        }
+        if (baseName.endsWith(BinarySignalLogWriter.FILE_EXTENSION)) {
+            baseName = baseName.substring(0, baseName.length() - BinarySignalLogWriter.FILE_EXTENSION.length());
+        }
+
+        if (args.length == 2) {
+            Path out = Path.of(args[1]);
+            if (out.toString().endsWith(".wpilog")) {
+                toWpilog(in, out);
+            } else {
+                toCsv(in, out);
+            }
+        } else {
+            toCsv(in, in.resolveSibling(baseName + CsvSignalLogWriter.FILE_EXTENSION));
+            toWpilog(in, in.resolveSibling(baseName + ".wpilog"));
+        }
+    }
+
+    /**
+     * Converts a binary log to the same CSV the logger writes in CSV mode.
+     * 
+     * @return Number of rows converted
+     */
+    public static long toCsv(Path in, Path out) throws IOException {
+        long rows = 0;
+        out.toFile().delete();
+        try (BinarySignalLogReader reader = new BinarySignalLogReader(in)) {
+            CsvSignalLogWriter writer = new CsvSignalLogWriter(out,
+                    out.toString().endsWith(SignalLogOutput.GZIP_EXTENSION));
+            try {
+                writer.writeHeader(reader.getNames(), reader.getUnits());
+                while (reader.next()) {
+                    writer.writeRow(reader.getTime(), reader.getValues(), reader.getPresent());
+                    rows++;
+                }
+            } finally {
+                writer.close();
+            }
+            report(in, out, rows, reader.wasTruncated());
+        }
+        return rows;
+    }
+
+    /**
+     * Converts a binary log to a WPILib data log. Each signal becomes a double entry named
+     * /Signals/[signal name], with its units in the entry metadata, and gets a record every time
+     * it was sampled.
+     * 
+     * @return Number of rows converted
+     */
+    public static long toWpilog(Path in, Path out) throws IOException {
+        long rows = 0;
+        try (BinarySignalLogReader reader = new BinarySignalLogReader(in);
+                WpilogWriter writer = new WpilogWriter(out, "Converted from " + in.getFileName())) {
+            String[] names = reader.getNames();
+            String[] units = reader.getUnits();
+            int[] entryIds = new int[names.length];
+            boolean started = false;
+            while (reader.next()) {
+                long time_us = Math.round(reader.getTime() * 1000000.0);
+                if (!started) {
+                    // Entries have to start before their first value
+                    for (int i = 0; i < names.length; i++) {
+                        entryIds[i] = writer.start("/Signals/" + names[i], "double",
+                                "{\"units\":\"" + units[i].replace("\\", "\\\\").replace("\"", "\\\"") + "\"}", time_us);
+                    }
+                    started = true;
+                }
+                double[] values = reader.getValues();
+                long[] present = reader.getPresent();
+                for (int col = 0; col < names.length; col++) {
+                    if (SignalLogWriter.isPresent(present, col)) {
+                        writer.appendDouble(entryIds[col], values[col], time_us);
+                    }
+                }
+                rows++;
+            }
+            report(in, out, rows, reader.wasTruncated());
+        }
+        return rows;
+    }
+
+    private static void report(Path in, Path out, long rows, boolean truncated) {
+        System.out.println("Converted " + Long.toString(rows) + " rows from " + in + " to " + out);
+        if (truncated) {
+            System.out.println("Warning: " + in + " ends partway through a row, everything before that was kept.");
+        }
+    }
+}
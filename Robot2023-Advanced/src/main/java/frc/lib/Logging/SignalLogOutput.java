@@ -0,0 +1,135 @@
+package frc.lib.Logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The file a SignalLogWriter's bytes end up in, either written as-is or gzipped on the way.
+ * Only ever used from the logger thread, so compression happens there too and never on the
+ * main loop.
+ *
+ * Compressed output is a normal .gz file that gunzip and friends can open. flush() does a
+ * deflate sync flush, so everything written before it can be decompressed even if the file
+ * is never properly closed.
+ */
+class SignalLogOutput implements Closeable {
+
+    static final String GZIP_EXTENSION = ".gz";
+
+    // Deflate output is collected in chunks this big before going to the file
+    private static final int GZIP_BUFFER_BYTES = 16 * 1024;
+
+    private final FileChannel channel;
+    // null when writing uncompressed
+    private final GZIPOutputStream gzip;
+    private long fileBytes = 0;
+    private long bytesIn = 0;
+
+    SignalLogOutput(Path file, boolean compress) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (compress) {
+            try {
+                gzip = new GZIPOutputStream(new ChannelSink(), GZIP_BUFFER_BYTES, true);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        } else {
+            gzip = null;
+        }
+    }
+
+    /**
+     * Writes everything between the buffer's position and limit, leaving the position at the limit.
+     */
+    void write(ByteBuffer src) throws IOException {
+        bytesIn += src.remaining();
+        if (gzip != null) {
+            // Log writers always hand over heap buffers
+            gzip.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+        } else {
+            writeToFile(src);
+        }
+    }
+
+    /**
+     * Pushes anything the compressor is holding on to out to the file.
+     */
+    void flush() throws IOException {
+        if (gzip != null) {
+            gzip.flush();
+        }
+    }
+
+    /**
+     * Waits until everything written to the file so far is actually on the disk, and not just
+     * in the OS's cache. Slow - call flush() first, and not too often.
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * @return Bytes handed to write() so far, before compression
+     */
+    long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * @return Bytes that have made it to the file so far - after compression, if compressing
+     */
+    long getFileBytes() {
+        return fileBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (gzip != null) {
+                // Writes the gzip trailer
+                gzip.finish();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeToFile(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            fileBytes += channel.write(src);
+        }
+    }
+
+    /**
+     * Feeds the compressor's output to the file. The compressor always writes from the same
+     * array, so one wrapper around it gets reused rather than making a new one per write.
+     */
+    private class ChannelSink extends OutputStream {
+        private byte[] lastArray = null;
+        private ByteBuffer lastWrapper = null;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (b != lastArray) {
+                lastArray = b;
+                lastWrapper = ByteBuffer.wrap(b);
+            }
+            lastWrapper.clear();
+            lastWrapper.limit(off + len).position(off);
+            writeToFile(lastWrapper);
+        }
+    }
+}
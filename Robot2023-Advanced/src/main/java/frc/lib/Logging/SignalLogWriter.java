@@ -0,0 +1,46 @@
+package frc.lib.Logging;
+
+import java.io.IOException;
+
+/**
+ * One open signal log file, in whatever format it's being written in. Only ever used from the
+ * logger thread.
+ * 
+ * A row is all the samples taken at one timestamp. values[i] is the sample for signal column i,
+ * and only means something if bit i of present is set (present is a bitmap, 64 columns per long).
+ */
+interface SignalLogWriter {
+
+    /**
+     * Writes whatever goes at the top of the file. Called once, right after opening it.
+     */
+    void writeHeader(String[] names, String[] units) throws IOException;
+
+    void writeRow(double time_s, double[] values, long[] present) throws IOException;
+
+    /**
+     * Pushes anything buffered in memory out to the file.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flushes, then waits until the file is actually on the disk, so it survives the power going out.
+     */
+    void sync() throws IOException;
+
+    /**
+     * @return Bytes that have made it to the file so far. Anything still buffered doesn't count yet.
+     */
+    long getFileBytes();
+
+    /**
+     * @return Bytes of log data written so far, before compression, counting anything still buffered
+     */
+    long getBytesWritten();
+
+    void close() throws IOException;
+
+    static boolean isPresent(long[] present, int col) {
+        return (present[col >>> 6] & (1L << col)) != 0;
+    }
+}
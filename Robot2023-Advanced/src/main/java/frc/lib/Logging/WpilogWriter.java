@@ -0,0 +1,113 @@
+package frc.lib.Logging;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Bare-bones writer for WPILib's .wpilog data log format, enough to hold double signals.
+ * Pure Java so the log converter runs on a laptop without the WPILib native libraries.
+ * 
+ * Follows the WPILib datalog spec: an 8 byte header ("WPILOG" + version 1.0) plus an extra header
+ * string, then records. Each record is a length byte, the entry ID, payload size and timestamp
+ * (microseconds) packed into as few little endian bytes as they fit in, then the payload.
+ * Entry 0 is reserved for control records, which is how entries get started.
+ */
+class WpilogWriter implements Closeable {
+
+    private static final int CONTROL_ENTRY = 0;
+    private static final byte CONTROL_START = 0;
+
+    private final OutputStream out;
+    private int nextEntryId = 1;
+    private final byte[] recordHeader = new byte[1 + 4 + 4 + 8];
+    private final byte[] doublePayload = new byte[8];
+
+    WpilogWriter(Path file, String extraHeader) throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        out.write("WPILOG".getBytes(StandardCharsets.US_ASCII));
+        // Version 1.0, minor byte first
+        out.write(0x00);
+        out.write(0x01);
+        byte[] extra = extraHeader.getBytes(StandardCharsets.UTF_8);
+        writeLE(extra.length, 4);
+        out.write(extra);
+    }
+
+    /**
+     * Starts a new entry.
+     * 
+     * @return ID to append values to the entry with
+     */
+    int start(String name, String type, String metadata, long timestamp_us) throws IOException {
+        int entryId = nextEntryId++;
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        byte[] metadataBytes = metadata.getBytes(StandardCharsets.UTF_8);
+        int payloadSize = 1 + 4 + 4 + nameBytes.length + 4 + typeBytes.length + 4 + metadataBytes.length;
+
+        writeRecordHeader(CONTROL_ENTRY, payloadSize, timestamp_us);
+        out.write(CONTROL_START);
+        writeLE(entryId, 4);
+        writeLE(nameBytes.length, 4);
+        out.write(nameBytes);
+        writeLE(typeBytes.length, 4);
+        out.write(typeBytes);
+        writeLE(metadataBytes.length, 4);
+        out.write(metadataBytes);
+        return entryId;
+    }
+
+    void appendDouble(int entryId, double value, long timestamp_us) throws IOException {
+        writeRecordHeader(entryId, 8, timestamp_us);
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            doublePayload[i] = (byte) (bits >>> (8 * i));
+        }
+        out.write(doublePayload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeRecordHeader(int entryId, int payloadSize, long timestamp_us) throws IOException {
+        int idLen = byteLength(entryId & 0xFFFFFFFFL, 4);
+        int sizeLen = byteLength(payloadSize & 0xFFFFFFFFL, 4);
+        int timeLen = byteLength(timestamp_us, 8);
+        // Field lengths minus one - ID in bits 0-1, payload size in bits 2-3, timestamp in bits 4-6
+        recordHeader[0] = (byte) ((idLen - 1) | ((sizeLen - 1) << 2) | ((timeLen - 1) << 4));
+        int pos = 1;
+        pos = putLE(entryId & 0xFFFFFFFFL, idLen, pos);
+        pos = putLE(payloadSize & 0xFFFFFFFFL, sizeLen, pos);
+        pos = putLE(timestamp_us, timeLen, pos);
+        out.write(recordHeader, 0, pos);
+    }
+
+    private int putLE(long value, int len, int pos) {
+        for (int i = 0; i < len; i++) {
+            recordHeader[pos++] = (byte) (value >>> (8 * i));
+        }
+        return pos;
+    }
+
+    private void writeLE(long value, int len) throws IOException {
+        for (int i = 0; i < len; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xFF);
+        }
+    }
+
+    // Fewest bytes that hold the value, at least 1. Negative values take all of them.
+    private static int byteLength(long value, int maxLen) {
+        int len = 1;
+        while (len < maxLen && (value >>> (8 * len)) != 0) {
+            len++;
+        }
+        return len;
+    }
+}
@@ -65,8 +65,8 @@ public class ZipUtils {
     }
 
     public void generateFileList(File node) {
-        // add file only if it's a .csv
-        if (node.isFile() && isCSV(node.toString())) {
+        // add file only if it's a log
+        if (node.isFile() && isLogFile(node.toString())) {
             fileList.add(generateZipEntry(node.toString()));
         }
 
@@ -82,7 +82,10 @@ public class ZipUtils {
         return file.substring(sourceFolder.length() + 1, file.length());
     }
 
-    private boolean isCSV(String filename) {
-        return filename.endsWith((".csv"));
+    static boolean isLogFile(String filename) {
+        if (filename.endsWith(SignalLogOutput.GZIP_EXTENSION)) {
+            filename = filename.substring(0, filename.length() - SignalLogOutput.GZIP_EXTENSION.length());
+        }
+        return filename.endsWith(CsvSignalLogWriter.FILE_EXTENSION) || filename.endsWith(BinarySignalLogWriter.FILE_EXTENSION);
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package frc.lib.Signal.Annotations;
 
 import java.lang.annotation.*;
 
+import frc.lib.Signal.PublishPolicy;
+
 @Target({ ElementType.FIELD, ElementType.METHOD })
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Signal {
@@ -10,4 +12,13 @@ public @interface Signal {
 
     String units() default "";
 
+    /** How samples get published to NetworkTables. The file log always gets every sample. */
+    PublishPolicy.Mode publish() default PublishPolicy.Mode.EVERY_LOOP;
+
+    /** For DECIMATED, publish one out of every this many samples */
+    int decimation() default 5;
+
+    /** For ON_CHANGE, how far the value has to move from the last published value to publish again */
+    double deadband() default 0.0;
+
 }
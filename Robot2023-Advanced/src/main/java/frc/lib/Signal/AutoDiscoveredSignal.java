@@ -1,6 +1,10 @@
 package frc.lib.Signal;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 
 /*
  *******************************************************************************************
@@ -22,17 +26,35 @@ import java.lang.reflect.Field;
  *   if you would consider donating to our club to help further STEM education.
  */
 
-class AutoDiscoveredSignal {
+class AutoDiscoveredSignal implements SignalSampler {
 
     Field sourceField;
     Object sourceFieldParentObj;
     Signal sig;
     Class type;
 
+    // Reads the field's current value as a double, with the parent object already bound in.
+    // Type ()double, or null if the field's type can't be turned into a number.
+    MethodHandle reader;
+
+    private static final MethodHandle BOOLEAN_TO_DOUBLE;
+    static {
+        try {
+            BOOLEAN_TO_DOUBLE = MethodHandles.lookup().findStatic(AutoDiscoveredSignal.class, "booleanToDouble",
+                    MethodType.methodType(double.class, boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /**
      * Class to wrapper the usual Signal object with the java Reflection
      * Field/Object information required to reference and read the value at runtime.
      * 
+     * All the reflection happens here, once: the field gets turned into a method handle
+     * that reads it and converts it to a double, so sampling it each loop is about as cheap
+     * as reading the field directly.
+     * 
      * @param sourceField_in          Java Reflection Field object found during
      *                                recursive searching for @Signal annotated
      *                                objects
@@ -40,13 +62,17 @@ class AutoDiscoveredSignal {
      *                                runtime to populate the signal's value
      * @param name                    Signal name
      * @param units                   Signal units string
+     * @param policy                  How the signal gets published to NetworkTables
      */
-    AutoDiscoveredSignal(Field sourceField_in, Object sourceFieldParentObj_in, String name, String units) {
+    AutoDiscoveredSignal(Field sourceField_in, Object sourceFieldParentObj_in, String name, String units,
+            PublishPolicy policy) {
         sourceField = sourceField_in;
         sourceFieldParentObj = sourceFieldParentObj_in;
         type = sourceField.getType();
         sourceField.setAccessible(true);
         sig = new Signal(name, units);
+        sig.setPublishPolicy(policy);
+        reader = makeReader();
     }
 
     /**
@@ -55,39 +81,77 @@ class AutoDiscoveredSignal {
      * 
      * @param time Time at which the sample was inititated, in seconds.
      */
-    void addSample(double time) {
-        // Switch behavior based on the type of field that was annotated
+    @Override
+    public void sample(double time) {
+        if (reader == null) {
+            return; // Unsupported type, already warned about at startup
+        }
+        try {
+            sig.addSample(time, (double) reader.invokeExact());
+        } catch (NullPointerException e) {
+            System.out.println(
+                    "WARNING: Signal " + sig.getName() + " threw Null Pointer while we were attempting to read it.");
+            System.out.println(e);
+        } catch (Throwable e) {
+            System.out.println(
+                    "WARNING: Signal " + sig.getName() + " threw " + e.getClass().getSimpleName() + " while we were attempting to read it.");
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Builds the method handle that reads the field as a double, based on its type.
+     * 
+     * @return Handle of type ()double, or null if the type isn't supported
+     */
+    private MethodHandle makeReader() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
         try {
-            if (type == int.class) {
-                sig.addSample(time, sourceField.getInt(sourceFieldParentObj));
-            } else if (type == boolean.class) {
-                sig.addSample(time, sourceField.getBoolean(sourceFieldParentObj));
-            } else if (type == double.class) {
-                sig.addSample(time, sourceField.getDouble(sourceFieldParentObj));
-            } else if (type == float.class) {
-                sig.addSample(time, sourceField.getFloat(sourceFieldParentObj));
+            MethodHandle getter = lookup.unreflectGetter(sourceField);
+            if (!Modifier.isStatic(sourceField.getModifiers())) {
+                getter = getter.bindTo(sourceFieldParentObj);
+            }
+
+            if (type == boolean.class) {
+                getter = MethodHandles.filterReturnValue(getter, BOOLEAN_TO_DOUBLE);
             } else if (type.isEnum()) {
-                Object enumObj = sourceField.get(sourceFieldParentObj);
+                // most casserole enums define a value
+                Field valField;
                 try {
-                    Field valField = enumObj.getClass().getDeclaredField("value");// most casserole enums define a value
-                    sig.addSample(time, valField.getInt(enumObj));
+                    valField = type.getDeclaredField("value");
                 } catch (NoSuchFieldException e) {
-                    // Silently ignore for now... find fallbacks or print errors int he future?
+                    System.out.println("WARNING: Signal " + sig.getName() + " is enum type " + type.getName()
+                            + ", which has no \"value\" field to log. It will not be populated.");
+                    return null;
                 }
-
-            } else {
+                valField.setAccessible(true);
+                getter = MethodHandles.filterReturnValue(getter,
+                        lookup.unreflectGetter(valField).asType(MethodType.methodType(valField.getType(), type)));
+            } else if (!type.isPrimitive() || type == char.class || type == void.class) {
                 System.out.println("WARNING: Signal " + sig.getName() + " cannot be populated from underlying type "
                         + type.getName() + ". It is not yet supported, but you could add support!");
+                return null;
             }
+
+            // Widens whatever number type is left (int, float, etc) to a double
+            return getter.asType(MethodType.methodType(double.class));
+
         } catch (IllegalAccessException e) {
             System.out.println(
-                    "WARNING: Signal " + sig.getName() + " threw Illegal Access while we were attempting to read it.");
+                    "WARNING: Signal " + sig.getName() + " threw " + e.getClass().getSimpleName() + " while we were setting up to read it.");
             System.out.println(e);
-        } catch (NullPointerException e) {
-            System.out.println(
-                    "WARNING: Signal " + sig.getName() + " threw Null Pointer while we were attempting to read it.");
+            return null;
+        } catch (RuntimeException e) {
+            // asType throws WrongMethodTypeException if the types don't convert (ex: enum value that isn't a number)
+            System.out.println("WARNING: Signal " + sig.getName() + " cannot be populated from underlying type "
+                    + type.getName() + ".");
             System.out.println(e);
+            return null;
         }
     }
 
+    private static double booleanToDouble(boolean value) {
+        return value ? 1.0 : 0.0;
+    }
+
 }
@@ -0,0 +1,102 @@
+package frc.lib.Signal;
+
+/**
+ * How often a signal's samples get published to NetworkTables. The file log always gets every
+ * sample, this only cuts down on what goes over the network.
+ * 
+ * Set per signal with {@link Signal#setPublishPolicy}, or through the @Signal annotation.
+ * {@link SignalWrangler#setPublishOverride} replaces every signal's policy at once, ex: to go
+ * easy on the radio during matches.
+ */
+public final class PublishPolicy {
+
+    public enum Mode {
+        /** Every sample is published */
+        EVERY_LOOP,
+        /** One out of every N samples is published */
+        DECIMATED,
+        /** Published when the value moves more than the deadband from what was last published */
+        ON_CHANGE,
+        /** Never published, only written to the file log */
+        FILE_ONLY
+    }
+
+    public static final PublishPolicy EVERY_LOOP = new PublishPolicy(Mode.EVERY_LOOP, 1, 0.0);
+    public static final PublishPolicy FILE_ONLY = new PublishPolicy(Mode.FILE_ONLY, 1, 0.0);
+
+    final Mode mode;
+    final int decimation;
+    final double deadband;
+
+    private PublishPolicy(Mode mode, int decimation, double deadband) {
+        this.mode = mode;
+        this.decimation = decimation;
+        this.deadband = deadband;
+    }
+
+    /**
+     * @param decimation Publish one out of every this many samples, starting with the first
+     */
+    public static PublishPolicy decimated(int decimation) {
+        if (decimation < 1) {
+            throw new IllegalArgumentException("Decimation must be at least 1, got " + decimation);
+        }
+        return new PublishPolicy(Mode.DECIMATED, decimation, 0.0);
+    }
+
+    /**
+     * @param deadband Publish when the value differs from the last published value by more than
+     *                 this. 0 publishes on any change.
+     */
+    public static PublishPolicy onChange(double deadband) {
+        if (!(deadband >= 0.0)) {
+            throw new IllegalArgumentException("Deadband must be zero or positive, got " + deadband);
+        }
+        return new PublishPolicy(Mode.ON_CHANGE, 1, deadband);
+    }
+
+    /**
+     * Policy from the settings on a @Signal annotation.
+     * 
+     * @param mode       Which kind of policy
+     * @param decimation Only used for DECIMATED
+     * @param deadband   Only used for ON_CHANGE
+     */
+    public static PublishPolicy of(Mode mode, int decimation, double deadband) {
+        switch (mode) {
+            case DECIMATED:
+                return decimated(decimation);
+            case ON_CHANGE:
+                return onChange(deadband);
+            case FILE_ONLY:
+                return FILE_ONLY;
+            case EVERY_LOOP:
+            default:
+                return EVERY_LOOP;
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    public double getDeadband() {
+        return deadband;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case DECIMATED:
+                return "DECIMATED(" + decimation + ")";
+            case ON_CHANGE:
+                return "ON_CHANGE(" + deadband + ")";
+            default:
+                return mode.toString();
+        }
+    }
+}
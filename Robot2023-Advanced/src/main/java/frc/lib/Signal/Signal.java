@@ -11,9 +11,19 @@ public class Signal {
 
     String name;
     String units;
+    // Index of this signal in the SignalWrangler, set when it's registered
+    int id = -1;
     DoubleTopic nt4ValTopic;
     DoublePublisher nt4ValPublisher;
 
+    // How samples get published to NT, unless the wrangler has an override
+    PublishPolicy publishPolicy = PublishPolicy.EVERY_LOOP;
+    // Policy the publish state below was built up under, starts over when it changes
+    PublishPolicy activePolicy = null;
+    int samplesSincePublish;
+    double lastPublishedVal;
+    boolean hasPublished;
+
     /**
      * Class which describes one line on a plot
      * 
@@ -61,8 +71,71 @@ public class Signal {
      * @param value_in
      */
     public void addSample(double time_in_sec, double value_in) {
-        SignalWrangler.getInstance().logger.addSample(new DataSample(time_in_sec, value_in, this));
-        nt4ValPublisher.set(value_in, Math.round(time_in_sec*1000000l));
+        SignalWrangler wrangler = SignalWrangler.getInstance();
+        wrangler.logger.addSample(id, time_in_sec, value_in);
+        SignalBatchPublisher batch = wrangler.batchPublisher;
+        if (batch != null) {
+            // Goes out with everything else at the end of the loop
+            batch.setValue(id, value_in);
+        } else if (shouldPublish(wrangler.publishOverride, value_in)) {
+            nt4ValPublisher.set(value_in, Math.round(time_in_sec*1000000l));
+        }
+    }
+
+    /**
+     * Decide whether a new sample goes out over NT. The file log gets it either way.
+     * 
+     * @param override Policy to use instead of the signal's own, or null
+     * @param value_in The new sample's value
+     */
+    boolean shouldPublish(PublishPolicy override, double value_in) {
+        PublishPolicy policy = (override != null) ? override : publishPolicy;
+        if (policy != activePolicy) {
+            // Policy changed, start fresh so the first sample under it always goes out
+            activePolicy = policy;
+            samplesSincePublish = 0;
+            hasPublished = false;
+        }
+
+        switch (policy.mode) {
+            case DECIMATED:
+                boolean publish = (samplesSincePublish == 0);
+                samplesSincePublish++;
+                if (samplesSincePublish >= policy.decimation) {
+                    samplesSincePublish = 0;
+                }
+                return publish;
+            case ON_CHANGE:
+                if (!hasPublished || Math.abs(value_in - lastPublishedVal) > policy.deadband
+                        || Double.isNaN(value_in) != Double.isNaN(lastPublishedVal)) {
+                    hasPublished = true;
+                    lastPublishedVal = value_in;
+                    return true;
+                }
+                return false;
+            case FILE_ONLY:
+                return false;
+            case EVERY_LOOP:
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Set how this signal's samples get published to NetworkTables. Every sample still goes
+     * to the file log.
+     * 
+     * @param policy_in New policy, ex: PublishPolicy.onChange(0.1)
+     */
+    public void setPublishPolicy(PublishPolicy policy_in) {
+        publishPolicy = (policy_in != null) ? policy_in : PublishPolicy.EVERY_LOOP;
+    }
+
+    /**
+     * @return This signal's own publish policy, not counting any override on the wrangler
+     */
+    public PublishPolicy getPublishPolicy() {
+        return publishPolicy;
     }
 
     /**
@@ -72,6 +145,13 @@ public class Signal {
         return name;
     }
 
+    /**
+     * @return Unique index of this signal, in the order signals were registered
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * @return The name of the units the signal is measured in.
      */
@@ -0,0 +1,249 @@
+package frc.lib.Signal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.StringPublisher;
+
+/**
+ * Publishes every signal's latest value once per loop as a double array, instead of each signal
+ * sending its own NT message with its own timestamp.
+ * 
+ * Signals are either all in one group, or grouped by subsystem - the first part of their name,
+ * ex: "dt" for "dt.fl.wheelSpeed" (names without a "." go in "other"). Each group gets:
+ *   /SignalBatch/[group]/values - double[] of the group's values, one message per loop
+ *   /SignalBatch/[group]/schema - JSON {"names":[...], "units":[...]} saying which signal each
+ *                                 array index is. Re-sent whenever that changes - new signals,
+ *                                 renames, or a different order.
+ * The web pages decode these with interfaces/signalBatch.js.
+ * 
+ * FILE_ONLY signals are left out of the batches, so they stay off the network like they do
+ * without batching. The other policies are about how often a signal's own topic gets a message,
+ * which doesn't matter here since the batch goes out every loop either way. Changing a signal's
+ * policy to or from FILE_ONLY, or a publish override that replaces it, regroups the signals.
+ * 
+ * Signals with no sample since batching started read as NaN, and signals sampled less often
+ * than the main loop repeat their latest value.
+ * 
+ * Samples can come from any thread, so the latest values are only touched while holding this
+ * object's lock - that way growing the array can't lose a sample written at the same time, and
+ * a batch never goes out with half of a double in it.
+ */
+class SignalBatchPublisher {
+
+    static final String TOPIC_ROOT = "/SignalBatch/";
+    static final String SINGLE_GROUP = "all";
+    static final String NO_SUBSYSTEM_GROUP = "other";
+
+    final boolean groupBySubsystem;
+
+    // Latest value of each signal, by signal ID. Guarded by this.
+    private double[] latestValues = new double[0];
+
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    // Signals as they were when the groups were made, to tell when the schemas need to change
+    private Signal[] groupedSignals = new Signal[0];
+    private String[] groupedNames = new String[0];
+    private String[] groupedUnits = new String[0];
+    private boolean[] groupedFileOnly = new boolean[0];
+    private int loopCount = 0;
+
+    private static class Group {
+        int[] signalIds = new int[0];
+        double[] values = new double[0];
+        String schema = null;
+        DoubleArrayPublisher valuesPublisher;
+        StringPublisher schemaPublisher;
+    }
+
+    /**
+     * @param groupBySubsystem_in True for a group per subsystem, false for one with everything
+     * @param numSignals          Number of signals registered so far
+     */
+    SignalBatchPublisher(boolean groupBySubsystem_in, int numSignals) {
+        groupBySubsystem = groupBySubsystem_in;
+        ensureCapacity(numSignals);
+    }
+
+    /**
+     * Make room for signal IDs up to numSignals - 1, so their samples are kept from the start.
+     * Called as signals get registered.
+     */
+    synchronized void ensureCapacity(int numSignals) {
+        double[] oldValues = latestValues;
+        if (oldValues.length < numSignals) {
+            double[] newValues = Arrays.copyOf(oldValues, Math.max(numSignals, oldValues.length * 2));
+            Arrays.fill(newValues, oldValues.length, newValues.length, Double.NaN);
+            latestValues = newValues;
+        }
+    }
+
+    /**
+     * Record a signal's newest value, to go out with the next batch. Any thread.
+     */
+    synchronized void setValue(int id, double value) {
+        if (id >= 0 && id < latestValues.length) {
+            latestValues[id] = value;
+        }
+    }
+
+    /**
+     * Send one batch for each group. Call once per loop, after everything has been sampled.
+     * 
+     * @param time_s   Sample time of the loop in seconds
+     * @param signals  All registered signals, by ID
+     * @param override Global publish override from the wrangler, or null. FILE_ONLY stops
+     *                 batches, DECIMATED sends one out of every N, others send every loop.
+     */
+    void publish(double time_s, List<Signal> signals, PublishPolicy override) {
+        if (signalsChanged(signals, override)) {
+            regroup(signals, override);
+        }
+
+        if (override != null) {
+            if (override.mode == PublishPolicy.Mode.FILE_ONLY) {
+                return;
+            }
+            if (override.mode == PublishPolicy.Mode.DECIMATED) {
+                boolean send = (loopCount == 0);
+                loopCount = (loopCount + 1) % override.decimation;
+                if (!send) {
+                    return;
+                }
+            }
+        }
+
+        synchronized (this) {
+            for (Group group : groups.values()) {
+                int[] ids = group.signalIds;
+                double[] values = group.values;
+                for (int i = 0; i < ids.length; i++) {
+                    values[i] = latestValues[ids[i]];
+                }
+            }
+        }
+        long time_us = Math.round(time_s * 1000000l);
+        for (Group group : groups.values()) {
+            group.valuesPublisher.set(group.values, time_us);
+        }
+    }
+
+    /**
+     * Unpublishes all the batch topics.
+     */
+    void close() {
+        for (Group group : groups.values()) {
+            group.valuesPublisher.close();
+            group.schemaPublisher.close();
+        }
+        groups.clear();
+        groupedSignals = new Signal[0];
+    }
+
+    // True if any signal was added, moved, renamed, had its units changed, or went to or from
+    // FILE_ONLY since the last regroup
+    private boolean signalsChanged(List<Signal> signals, PublishPolicy override) {
+        if (signals.size() != groupedSignals.length) {
+            return true;
+        }
+        for (int i = 0; i < groupedSignals.length; i++) {
+            Signal sig = signals.get(i);
+            // Comparing the String objects is enough - changing a name always puts a new one there
+            if (sig != groupedSignals[i] || sig.getName() != groupedNames[i] || sig.getUnits() != groupedUnits[i]
+                    || isFileOnly(sig, override) != groupedFileOnly[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sorts every signal into its group, and sends out the schemas that changed
+    private void regroup(List<Signal> signals, PublishPolicy override) {
+        int numSigs = signals.size();
+        ensureCapacity(numSigs);
+
+        Map<String, List<Signal>> members = new LinkedHashMap<>();
+        for (Signal sig : signals) {
+            if (!isFileOnly(sig, override)) {
+                members.computeIfAbsent(getGroupName(sig), k -> new ArrayList<>()).add(sig);
+            }
+        }
+
+        NetworkTableInstance inst = NetworkTableInstance.getDefault();
+        for (Map.Entry<String, List<Signal>> entry : members.entrySet()) {
+            String groupName = entry.getKey();
+            List<Signal> groupSigs = entry.getValue();
+            Group group = groups.get(groupName);
+            if (group == null) {
+                group = new Group();
+                String topicBase = TOPIC_ROOT + groupName;
+                // Same as the signal topics - every loop matters, keep every batch
+                group.valuesPublisher = inst.getDoubleArrayTopic(topicBase + "/values")
+                        .publish(PubSubOption.sendAll(true), PubSubOption.keepDuplicates(true));
+                group.schemaPublisher = inst.getStringTopic(topicBase + "/schema").publish();
+                groups.put(groupName, group);
+            }
+
+            int[] ids = new int[groupSigs.size()];
+            StringBuilder names = new StringBuilder();
+            StringBuilder units = new StringBuilder();
+            for (int i = 0; i < ids.length; i++) {
+                Signal sig = groupSigs.get(i);
+                ids[i] = sig.getId();
+                names.append(i > 0 ? "," : "").append(JSONObject.quote(sig.getName()));
+                units.append(i > 0 ? "," : "").append(JSONObject.quote(sig.getUnits()));
+            }
+            String schema = "{\"names\":[" + names + "],\"units\":[" + units + "]}";
+            group.signalIds = ids;
+            group.values = new double[ids.length];
+            if (!schema.equals(group.schema)) {
+                group.schema = schema;
+                group.schemaPublisher.set(schema);
+            }
+        }
+
+        // Groups whose signals were all renamed into other groups, or made FILE_ONLY
+        groups.entrySet().removeIf(entry -> {
+            if (members.containsKey(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().valuesPublisher.close();
+            entry.getValue().schemaPublisher.close();
+            return true;
+        });
+
+        groupedSignals = new Signal[numSigs];
+        groupedNames = new String[numSigs];
+        groupedUnits = new String[numSigs];
+        groupedFileOnly = new boolean[numSigs];
+        for (int i = 0; i < numSigs; i++) {
+            Signal sig = signals.get(i);
+            groupedSignals[i] = sig;
+            groupedNames[i] = sig.getName();
+            groupedUnits[i] = sig.getUnits();
+            groupedFileOnly[i] = isFileOnly(sig, override);
+        }
+    }
+
+    // Same choice of policy as Signal.shouldPublish - the override, if there is one, replaces the signal's own
+    private static boolean isFileOnly(Signal sig, PublishPolicy override) {
+        PublishPolicy policy = (override != null) ? override : sig.getPublishPolicy();
+        return policy.mode == PublishPolicy.Mode.FILE_ONLY;
+    }
+
+    private String getGroupName(Signal sig) {
+        if (!groupBySubsystem) {
+            return SINGLE_GROUP;
+        }
+        int dot = sig.getName().indexOf('.');
+        return (dot > 0) ? sig.getName().substring(0, dot) : NO_SUBSYSTEM_GROUP;
+    }
+}
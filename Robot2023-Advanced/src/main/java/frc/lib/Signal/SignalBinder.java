@@ -0,0 +1,21 @@
+package frc.lib.Signal;
+
+/**
+ * Implemented by the classes the @Signal annotation processor generates at build time, one per
+ * robot class, named after it with "_SignalBinder" on the end (ex: frc.robot.Robot_SignalBinder).
+ * 
+ * A binder does for one class what registerSignals used to do with reflection: creates a Signal for
+ * each @Signal field declared in the class, and hands every other object field to the discovery so
+ * it can keep walking. The signals are sampled by a sampler the binder generates too, which reads
+ * the fields directly.
+ */
+public interface SignalBinder {
+
+    /**
+     * @param obj       Object of the binder's class to find signals in
+     * @param prefix    "."-separated path of field names from the root container to obj
+     * @param discovery Discovery this is part of
+     */
+    void bind(Object obj, String prefix, SignalDiscovery discovery);
+
+}
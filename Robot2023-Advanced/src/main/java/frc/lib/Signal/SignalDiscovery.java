@@ -0,0 +1,267 @@
+package frc.lib.Signal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One pass of finding all the @Signal annotated fields under a root object.
+ * 
+ * Starting at the root, each object's class is looked up for a {@link SignalBinder} generated at
+ * build time, which creates the signals for that class and passes each of its other object fields
+ * back in here to be walked the same way. Only objects from our own robot packages are walked.
+ * 
+ * Classes the annotation processor can't generate a binder for (private nested classes, anonymous
+ * classes, lambdas) fall back to the old reflection-based search.
+ * 
+ * The public methods are meant for the generated binders, not to be called directly.
+ */
+public final class SignalDiscovery {
+
+    /** Suffix added to a class's binary name to get its generated binder */
+    public static final String BINDER_SUFFIX = "_SignalBinder";
+
+    // Stands in for "no generated binder" in the cache
+    private static final SignalBinder NO_BINDER = (obj, prefix, discovery) -> {
+    };
+
+    /** Everything that needs to be sampled each loop, in the order it was found */
+    final List<SignalSampler> samplers = new ArrayList<>();
+
+    /**
+     * Set of all objects that we've analyzed for whether they have @Signal
+     * annotations or not. In the event that two objects reference each other,
+     * this should help break an infinite-recursion case, since each unique object
+     * only needs to be checked once.
+     */
+    private final Set<Object> checkedObjects = new HashSet<>();
+
+    private final Map<Class<?>, SignalBinder> binders = new HashMap<>();
+
+    int signalCount = 0;
+    int reflectedObjectCount = 0;
+
+    SignalDiscovery() {
+    }
+
+    /**
+     * Finds all the signals in the root object and everything under it.
+     * 
+     * @param root   Object to start at
+     * @param prefix Name prefix for the root's signals
+     */
+    void discover(Object root, String prefix) {
+        Class<?> rootClass = root.getClass();
+        Package rootPkg = rootClass.getPackage();
+
+        if (rootPkg == null) {
+            return; // Stop, no more tree to traverse
+        }
+
+        if (isRobotPackage(rootPkg.toString())) {
+            SignalBinder binder = getBinder(rootClass);
+            if (binder != NO_BINDER) {
+                binder.bind(root, prefix, this);
+            } else {
+                reflectAnnotatedSignals(root, prefix);
+            }
+        } // else, rootPkg wasn't in frc.robot - stop recursion
+    }
+
+    /**
+     * Only our own code gets searched - this should help keep search time reasonable.
+     * The annotation processor generates binders for the same set of packages.
+     */
+    static boolean isRobotPackage(String pkgName) {
+        return pkgName.contains("frc.sim") || pkgName.contains("frc.robot") || pkgName.contains("frc.wrappers");
+    }
+
+    private SignalBinder getBinder(Class<?> cls) {
+        SignalBinder binder = binders.get(cls);
+        if (binder == null) {
+            binder = NO_BINDER;
+            try {
+                Class<?> binderClass = Class.forName(cls.getName() + BINDER_SUFFIX, true, cls.getClassLoader());
+                binder = (SignalBinder) binderClass.getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                // Nothing generated for this class, reflection it is
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                System.out.println("WARNING: could not create the generated signal binder for " + cls.getName()
+                        + ", searching it with reflection instead.");
+                System.out.println(e);
+            }
+            binders.put(cls, binder);
+        }
+        return binder;
+    }
+
+    /**
+     * As we recurse, keep track of the full-name for the object as a "."-separated
+     * path of sorts.
+     */
+    public static String childName(String prefix, String fieldName) {
+        return prefix + (prefix.length() > 0 ? "." : "") + fieldName;
+    }
+
+    /**
+     * Creates the signal for an @Signal field.
+     * 
+     * @param prefix        Name prefix of the object the field is in
+     * @param fieldName     Name of the field
+     * @param annotatedName name() from the annotation, used instead of the path if it's not empty
+     * @param units         units() from the annotation
+     * @param policy        Publish policy from the annotation
+     */
+    public Signal newSignal(String prefix, String fieldName, String annotatedName, String units,
+            PublishPolicy policy) {
+        String nameToUse = annotatedName.length() > 0 ? annotatedName : childName(prefix, fieldName);
+        signalCount++;
+        Signal sig = new Signal(nameToUse, units);
+        sig.setPublishPolicy(policy);
+        return sig;
+    }
+
+    /**
+     * Creates the signal for an @Signal field the generated code can't read directly (ex: enums, or
+     * types that aren't supported), reading it with a method handle looked up by reflection instead.
+     */
+    public void addReflectedSignal(Object obj, Class<?> cls, String fieldName, String prefix, String annotatedName,
+            String units, PublishPolicy policy) {
+        try {
+            addReflectedSignal(obj, cls.getDeclaredField(fieldName), prefix, annotatedName, units, policy);
+        } catch (NoSuchFieldException e) {
+            System.out.println("WARNING: skipping " + fieldName + ", generated signal binder is out of date with "
+                    + cls.getName());
+            System.out.println(e);
+        }
+    }
+
+    private void addReflectedSignal(Object obj, Field field, String prefix, String annotatedName, String units,
+            PublishPolicy policy) {
+        String nameToUse = annotatedName.length() > 0 ? annotatedName : childName(prefix, field.getName());
+        signalCount++;
+        samplers.add(new AutoDiscoveredSignal(field, obj, nameToUse, units, policy));
+    }
+
+    /**
+     * Adds a sampler to be run each loop.
+     */
+    public void addSampler(SignalSampler sampler) {
+        samplers.add(sampler);
+    }
+
+    /**
+     * Walks an object found in a field, if it hasn't been walked already.
+     * 
+     * @param child     Value of the field, may be null
+     * @param prefix    Name prefix of the object the field is in
+     * @param fieldName Name of the field
+     */
+    public void visit(Object child, String prefix, String fieldName) {
+        if (child != null && !checkedObjects.contains(child)) {
+            checkedObjects.add(child);
+            discover(child, childName(prefix, fieldName));
+        } // else, we either couldn't get a reference to the object, or we already checked
+          // it - stop recursion
+    }
+
+    /**
+     * Same as {@link #visit(Object, String, String)}, for a private field read through a getter
+     * from {@link #privateGetter}.
+     */
+    public void visit(MethodHandle getter, Object obj, String prefix, String fieldName) {
+        Object child = null;
+        try {
+            child = (Object) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            System.out.println("WARNING: skipping " + fieldName);
+            System.out.println(e);
+        }
+        visit(child, prefix, fieldName);
+    }
+
+    /**
+     * Looks up a getter for a private field, for generated binders to keep in a static final field.
+     * Static and instance fields both come back as a handle taking the object (ignored if static).
+     * 
+     * @param cls        Class declaring the field
+     * @param fieldName  Name of the field
+     * @param returnType Type the handle returns, the field's type gets converted to it
+     * @return Handle of type (Object)returnType
+     */
+    public static MethodHandle privateGetter(Class<?> cls, String fieldName, Class<?> returnType) {
+        try {
+            Field field = cls.getDeclaredField(fieldName);
+            MethodHandle getter = MethodHandles.privateLookupIn(cls, MethodHandles.lookup()).unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            }
+            return getter.asType(MethodType.methodType(returnType, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated signal binder is out of date with " + cls.getName(), e);
+        }
+    }
+
+    /**
+     * Called by generated samplers when reading a private field fails.
+     */
+    public static void sampleFailed(Signal sig, Throwable e) {
+        System.out.println("WARNING: Signal " + sig.getName() + " threw " + e.getClass().getSimpleName()
+                + " while we were attempting to read it.");
+        System.out.println(e);
+    }
+
+    /**
+     * Recursively-called signals-finding function, for objects whose class has no generated binder.
+     * It traverses each field (ie, variable or object or whatever) declared within
+     * the class of the object, finds the objects of each of those fields, and does
+     * one of two things: 1) Check if it's annotated to be a signal 2) Otherwise,
+     * walk the new "child" object. Recursion stops if we hit #1, or if the
+     * object's class is not "frc.robot".
+     * Note this should NOT be called at periodic runtime.... because a) it's not
+     * tested that way and b) recursion.
+     */
+    private void reflectAnnotatedSignals(Object root, String prefix) {
+        reflectedObjectCount++;
+        for (Field field : root.getClass().getDeclaredFields()) {
+
+            if (field.isAnnotationPresent(frc.lib.Signal.Annotations.Signal.class)) {
+                // Case #1 - we found a @signal annotation - create a new AutoDiscoveredSignal
+                frc.lib.Signal.Annotations.Signal ann = field.getAnnotation(frc.lib.Signal.Annotations.Signal.class);
+                PublishPolicy policy = PublishPolicy.EVERY_LOOP;
+                try {
+                    policy = PublishPolicy.of(ann.publish(), ann.decimation(), ann.deadband());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("WARNING: bad publish settings on " + field.getName()
+                            + ", publishing every loop instead. " + e.getMessage());
+                }
+                addReflectedSignal(root, field, prefix, ann.name(), ann.units(), policy);
+
+            } else {
+                // No signal annotation - we should see if we can recurse on the object
+                // associated with this field
+                // First attempt to get the object and make it accessable.
+                Object childObj = null;
+                try {
+                    field.setAccessible(true);
+                    childObj = field.get(root);
+                } catch (IllegalAccessException e) {
+                    // Not 100% sure how this could get thrown. If so, print a warning, but move on
+                    // without error.
+                    System.out.println("WARNING: skipping " + field.getName());
+                    System.out.println(e);
+                }
+                visit(childObj, prefix, field.getName());
+            }
+        } // End FOR
+    }
+
+}
@@ -0,0 +1,14 @@
+package frc.lib.Signal;
+
+/**
+ * Something that reads the current value of one or more signals' sources and adds them as samples.
+ * Called once per loop for everything found by {@link SignalWrangler#registerSignals}.
+ */
+public interface SignalSampler {
+
+    /**
+     * @param time Time at which the sample was inititated, in seconds.
+     */
+    void sample(double time);
+
+}
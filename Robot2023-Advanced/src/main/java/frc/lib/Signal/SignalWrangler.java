@@ -1,10 +1,9 @@
 package frc.lib.Signal;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
@@ -22,34 +21,63 @@ public class SignalWrangler {
         return instance;
     }
 
-    /** Full set of all registered signals on this robot */
+    /** Full set of all registered signals on this robot, indexed by signal ID */
     public ArrayList<Signal> registeredSignals = new ArrayList<Signal>(0);
 
+    /** Registered signals by name. If two share a name, the first one registered wins. */
+    Map<String, Signal> signalsByName = new HashMap<String, Signal>();
+
     // File logger for signals
     public SignalFileLogger logger;
 
+    // When set, used for every signal instead of their own publish policies
+    volatile PublishPolicy publishOverride = null;
+
+    // Publishes all signals as arrays once per loop instead of a topic each. Null when off.
+    volatile SignalBatchPublisher batchPublisher = null;
+
     private SignalWrangler() {
         logger = new SignalFileLogger();
     }
 
+    /**
+     * Adds a signal, and gives it the next ID. IDs are dense, so they can be used directly as array
+     * indices by anything keeping per-signal state (ex: the file logger's column lookup).
+     * 
+     * @return 0 on success, -1 if the signal was already registered
+     */
     public int register(Signal sig_in) {
         int ret_val = 0;
-        if (registeredSignals.contains(sig_in)) {
+        if (sig_in.id >= 0 && sig_in.id < registeredSignals.size() && registeredSignals.get(sig_in.id) == sig_in) {
             DriverStation.reportWarning("[SignalWrangler] WARNING: " + sig_in.name
                     + " has already been added to the signal wrangler. Nothing done.", false);
             ret_val = -1;
         } else {
+            sig_in.id = registeredSignals.size();
             registeredSignals.add(sig_in);
+            signalsByName.putIfAbsent(sig_in.name, sig_in);
+            SignalBatchPublisher batch = batchPublisher;
+            if (batch != null) {
+                batch.ensureCapacity(registeredSignals.size());
+            }
             ret_val = 0;
         }
         return ret_val;
     }
 
+    /**
+     * @return The first signal registered with this name, or null if there isn't one
+     */
     public Signal getSignalFromName(String name_in) {
-        for (Signal sig : registeredSignals) {
-            if (sig.name.equals(name_in)) {
-                return sig;
-            }
+        return signalsByName.get(name_in);
+    }
+
+    /**
+     * @return The signal registered with this ID, or null if there isn't one
+     */
+    public Signal getSignalFromId(int id_in) {
+        if (id_in >= 0 && id_in < registeredSignals.size()) {
+            return registeredSignals.get(id_in);
         }
         return null;
     }
@@ -58,89 +86,64 @@ public class SignalWrangler {
         return registeredSignals;
     }
 
-    /** Set of all auto-discovered signals from @Signal annotations */
-    Set<AutoDiscoveredSignal> autoSig;
     /**
-     * Set of all java Reflection objects that we've analyzed for whether they
-     * have @Signal annotation or not In the event that two objects reference each
-     * other, this should help break an infinite-recursion case, since each unique
-     * object only needs to be checked once.
+     * Override how every signal gets published to NetworkTables, ex: a "competition mode" that
+     * only publishes every 10th sample, or nothing at all, to leave the radio link alone.
+     * Signals go back to their own policies once this is cleared. The file log is not affected.
+     * 
+     * @param policy Policy for all signals, or null to clear the override
      */
-    Set<Object> checkedObjects;
+    public void setPublishOverride(PublishPolicy policy) {
+        publishOverride = policy;
+    }
 
     /**
-     * Recursively-called signals-finding function. Starting at some object `root`
-     * it traverses each field (ie, variable or object or whatever) declared withing
-     * the class of that object, finds the objects of each of those fields, and does
-     * none of two things: 1) Check if it's annotated to be a signal 2) Otherwise,
-     * call the function recursively on the new "child" object. Recursion stops if
-     * we hit #1, or if the object's class is not "frc.robot" - this should help
-     * keep search time reasonable, since this happens at runtime at robot init.
-     * Note this should NOT be called at periodic runtime.... because a) it's not
-     * tested that way and b) recursion.
-     * 
-     * @param root
-     * @param prefix
+     * @return The policy overriding all signals' own, or null if there is none
      */
-    void findAllAnnotatedSignals(Object root, String prefix) {
-        Class rootClass = root.getClass();
-        Package rootPkg = rootClass.getPackage();
+    public PublishPolicy getPublishOverride() {
+        return publishOverride;
+    }
 
-        if(rootPkg == null){
-            return; //Stop, no more tree to traverse
+    /**
+     * Turn batched publishing on or off. When on, signals stop publishing to their own topics, and
+     * sampleAllSignals() sends the latest value of every signal at once as a double array -
+     * a handful of NT messages per loop instead of one per signal. See SignalBatchPublisher for
+     * the topics. FILE_ONLY signals are left out of the batches, other publish policies don't apply
+     * to them. The publish override does.
+     * 
+     * @param enabled          True to batch, false to go back to a topic per signal
+     * @param groupBySubsystem True for one array per subsystem (first part of the signal name),
+     *                         false for one array with everything
+     */
+    public void setBatchPublishing(boolean enabled, boolean groupBySubsystem) {
+        SignalBatchPublisher oldBatch = batchPublisher;
+        if (oldBatch != null) {
+            if (enabled && oldBatch.groupBySubsystem == groupBySubsystem) {
+                return; // Nothing to change
+            }
+            batchPublisher = null;
+            oldBatch.close();
         }
+        if (enabled) {
+            batchPublisher = new SignalBatchPublisher(groupBySubsystem, registeredSignals.size());
+        }
+    }
 
-        if (rootPkg.toString().contains("frc.sim") || rootPkg.toString().contains("frc.robot") || rootPkg.toString().contains("frc.wrappers")) {
-            // If we've got a valid package name inside of our FRC code, go through all the
-            // fields in the associated class.
-            for (Field field : rootClass.getDeclaredFields()) {
-
-                // As we recurse, keep track of the full-name for the object as a "."-separated
-                // path of sorts.
-                String newName = prefix + (prefix.length() > 0 ? "." : "") + field.getName();
-
-                if (field.isAnnotationPresent(frc.lib.Signal.Annotations.Signal.class)) {
-                    // Case #1 - we found a @signal annotation - create a new AUtoDiscoveredSignal
-                    frc.lib.Signal.Annotations.Signal ann = field
-                            .getAnnotation(frc.lib.Signal.Annotations.Signal.class);
-
-                    String nameToUse = newName;
-                    if(ann.name().length() > 0){
-                        nameToUse = ann.name();
-                    }
-
-                    autoSig.add(new AutoDiscoveredSignal(field, root, nameToUse, ann.units()));
-
-                } else {
-                    // No signal annotation - we should see if we can recurs on the object
-                    // associated with this field
-                    // First attempt to get the object and make it accessable.
-                    Object childObj = null;
-                    try {
-                        field.setAccessible(true);
-                        childObj = field.get(root);
-                    } catch (IllegalAccessException e) {
-                        // Not 100% sure how this could get thrown. If so, print a warning, but move on
-                        // without error.
-                        System.out.println("WARNING: skipping " + field.getName());
-                        System.out.println(e);
-                    }
-
-                    if (childObj != null && !checkedObjects.contains(childObj)) {
-                        checkedObjects.add(childObj);
-                        findAllAnnotatedSignals(childObj, newName);
-                    } // else, we either couldn't get a reference to the object, or we already checked
-                      // it - stop recursion
-                }
-            } // End FOR
-
-        } // else, rootPkg wasn't in frc.robot - stop recursion
+    /**
+     * @return True if signals are published in batches, see setBatchPublishing()
+     */
+    public boolean isBatchPublishing() {
+        return batchPublisher != null;
     }
 
+    /** Everything to sample each loop for the auto-discovered signals from @Signal annotations */
+    List<SignalSampler> autoSig;
+
     /**
      * Special thanks to oblarg and his oblog for help on impelmenting this.
-     * Entrypoint to set up required variable sets, and traverse rootContainer and
-     * its children to find all @Signal-annottated fields, and add a new signal for each of them.
+     * Entrypoint to traverse rootContainer and its children to find all @Signal-annottated fields,
+     * and add a new signal for each of them. Uses the signal binders generated at build time
+     * by the annotation processor, see {@link SignalDiscovery}.
      * Call this in robotInit(), and after all classes which contain @Signals have been instantiated.
      * @param rootContainer Object to start the traversal on. Usually just "this" for when called in Robot.java. 
      */
@@ -149,10 +152,15 @@ public class SignalWrangler {
         System.out.println("======================================");
         System.out.println("== Registering Signals...");
 
-        autoSig = new HashSet<>();
-        checkedObjects = new HashSet<>();
-        findAllAnnotatedSignals(rootContainer, "");
-        System.out.println("[Data Server]: Registered " + Integer.toString(autoSig.size()) + " signals from annotations");
+        SignalDiscovery discovery = new SignalDiscovery();
+        discovery.discover(rootContainer, "");
+        autoSig = discovery.samplers;
+        logger.createMetricSignals();
+        System.out.println("[Data Server]: Registered " + Integer.toString(discovery.signalCount) + " signals from annotations");
+        if (discovery.reflectedObjectCount > 0) {
+            System.out.println("[Data Server]: " + Integer.toString(discovery.reflectedObjectCount)
+                    + " objects had no generated signal binder and were searched with reflection");
+        }
 
         System.out.println("== ... Done!");
         System.out.println("======================================");
@@ -168,11 +176,18 @@ public class SignalWrangler {
 
     /**
      * Periodic call function to sample a single value from all annotation-created Signals
-     * Should be called at the end of each periodic function.
+     * Should be called at the end of each periodic function, since when batched publishing is on
+     * this is also when the batch goes out.
      */
     public void sampleAllSignals(double sampleTime){
-        for(AutoDiscoveredSignal sig : autoSig){
-            sig.addSample(sampleTime);
+        for(SignalSampler sig : autoSig){
+            sig.sample(sampleTime);
+        }
+        logger.sampleMetricSignals(sampleTime);
+
+        SignalBatchPublisher batch = batchPublisher;
+        if (batch != null) {
+            batch.publish(sampleTime, registeredSignals, publishOverride);
         }
     }
 
@@ -0,0 +1,321 @@
+package frc.lib.Signal.Processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that does the @Signal search at build time instead of at robot init.
+ * 
+ * For each class in the robot packages, generates a frc.lib.Signal.SignalBinder named after
+ * the class with "_SignalBinder" on the end, in the same package. Its bind() method walks the
+ * class's declared fields in order, the same way the reflection-based search did:
+ * - @Signal fields get a Signal, and a generated sampler reads them directly each loop.
+ * - Every other object field is passed back to the SignalDiscovery to keep walking.
+ * 
+ * Private fields can't be read from another class, so those go through a MethodHandle the binder
+ * looks up once into a static final field, which the JIT treats as a constant. @Signal fields of
+ * types that aren't plain numbers or booleans (ex: enums) are left to SignalDiscovery, which reads
+ * them the same way the reflection-based search does.
+ * 
+ * Classes the binder couldn't reference by name (private nested classes, and anything anonymous)
+ * don't get one, and are searched with reflection at runtime.
+ * 
+ * Runs on every class, not just ones with @Signal fields, since a class needs a binder for the
+ * search to walk through it to the classes that do have them.
+ */
+@SupportedAnnotationTypes("*")
+public class SignalProcessor extends AbstractProcessor {
+
+    static final String SIGNAL_ANNOTATION = "frc.lib.Signal.Annotations.Signal";
+    // Must match SignalDiscovery.BINDER_SUFFIX
+    static final String BINDER_SUFFIX = "_SignalBinder";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            processType(type);
+        }
+        // Never claim the annotations, other processors may want them too
+        return false;
+    }
+
+    private void processType(TypeElement type) {
+        if (type.getSimpleName().toString().endsWith(BINDER_SUFFIX)) {
+            return; // One of ours, from a previous round
+        }
+        if ((type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.ENUM)
+                && !type.getModifiers().contains(Modifier.ABSTRACT)
+                && isRobotPackage(getPackage(type).getQualifiedName().toString())
+                && isNameable(type)) {
+            try {
+                writeBinder(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Could not write signal binder: " + e.getMessage(), type);
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            processType(nested);
+        }
+    }
+
+    /**
+     * Same package filter as SignalDiscovery.isRobotPackage(), only these classes get walked.
+     */
+    static boolean isRobotPackage(String pkgName) {
+        return pkgName.contains("frc.sim") || pkgName.contains("frc.robot") || pkgName.contains("frc.wrappers");
+    }
+
+    private PackageElement getPackage(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    // Can another class in the same package refer to this one
+    private static boolean isNameable(TypeElement type) {
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!(e.getKind().isClass() || e.getKind().isInterface())) {
+                return false; // Local class
+            }
+        }
+        return true;
+    }
+
+    private void writeBinder(TypeElement type) throws IOException {
+        String pkgName = getPackage(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String binderName = binaryName.substring(pkgName.isEmpty() ? 0 : pkgName.length() + 1) + BINDER_SUFFIX;
+        String typeName = type.getQualifiedName().toString();
+
+        List<String> handleDecls = new ArrayList<>();
+        List<String> bindLines = new ArrayList<>();
+        List<String> sampleLines = new ArrayList<>();
+        int signalCount = 0;
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            String fieldName = field.getSimpleName().toString();
+            String fieldLit = literal(fieldName);
+            boolean isPrivate = field.getModifiers().contains(Modifier.PRIVATE);
+            boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+            String access = (isStatic ? typeName : "obj") + "." + fieldName;
+            String handle = "GET_" + fieldName;
+            TypeKind kind = field.asType().getKind();
+
+            AnnotationMirror ann = getSignalAnnotation(field);
+            if (ann != null) {
+                String annName = literal(getStringValue(ann, "name"));
+                String units = literal(getStringValue(ann, "units"));
+                String policy = getPublishPolicy(field, ann);
+                String valueType;
+                if (kind == TypeKind.BOOLEAN) {
+                    valueType = "boolean";
+                } else if (kind.isPrimitive() && kind != TypeKind.CHAR) {
+                    valueType = "double";
+                } else {
+                    // Enums and anything else, let the reflection-based reader sort it out
+                    bindLines.add("discovery.addReflectedSignal(obj, " + typeName + ".class, " + fieldLit
+                            + ", prefix, " + annName + ", " + units + ", " + policy + ");");
+                    continue;
+                }
+
+                String sig = "s" + signalCount++;
+                bindLines.add("Signal " + sig + " = discovery.newSignal(prefix, " + fieldLit + ", " + annName + ", "
+                        + units + ", " + policy + ");");
+                if (isPrivate) {
+                    handleDecls.add("private static final MethodHandle " + handle + " = SignalDiscovery.privateGetter("
+                            + typeName + ".class, " + fieldLit + ", " + valueType + ".class);");
+                    sampleLines.add("try {");
+                    sampleLines.add("    " + sig + ".addSample(time, (" + valueType + ") " + handle
+                            + ".invokeExact((Object) obj));");
+                    sampleLines.add("} catch (Throwable e) {");
+                    sampleLines.add("    SignalDiscovery.sampleFailed(" + sig + ", e);");
+                    sampleLines.add("}");
+                } else {
+                    sampleLines.add(sig + ".addSample(time, " + access + ");");
+                }
+
+            } else if (isWalkable(field.asType())) {
+                if (isPrivate) {
+                    handleDecls.add("private static final MethodHandle " + handle + " = SignalDiscovery.privateGetter("
+                            + typeName + ".class, " + fieldLit + ", Object.class);");
+                    bindLines.add("discovery.visit(" + handle + ", obj, prefix, " + fieldLit + ");");
+                } else {
+                    bindLines.add("discovery.visit(" + access + ", prefix, " + fieldLit + ");");
+                }
+            }
+        }
+
+        StringBuilder src = new StringBuilder();
+        if (!pkgName.isEmpty()) {
+            src.append("package ").append(pkgName).append(";\n\n");
+        }
+        src.append("import java.lang.invoke.MethodHandle;\n\n");
+        src.append("import javax.annotation.processing.Generated;\n\n");
+        src.append("import frc.lib.Signal.PublishPolicy;\n");
+        src.append("import frc.lib.Signal.Signal;\n");
+        src.append("import frc.lib.Signal.SignalBinder;\n");
+        src.append("import frc.lib.Signal.SignalDiscovery;\n");
+        src.append("import frc.lib.Signal.SignalSampler;\n\n");
+        src.append("/** Signals of {@link ").append(typeName).append("}. Generated at build time, do not edit. */\n");
+        src.append("@Generated(\"").append(SignalProcessor.class.getName()).append("\")\n");
+        src.append("@SuppressWarnings({ \"rawtypes\", \"deprecation\", \"unused\" })\n");
+        src.append("public final class ").append(binderName).append(" implements SignalBinder {\n\n");
+        for (String decl : handleDecls) {
+            src.append("    ").append(decl).append("\n");
+        }
+        if (!handleDecls.isEmpty()) {
+            src.append("\n");
+        }
+
+        src.append("    @Override\n");
+        src.append("    public void bind(Object root, String prefix, SignalDiscovery discovery) {\n");
+        src.append("        ").append(typeName).append(" obj = (").append(typeName).append(") root;\n");
+        for (String line : bindLines) {
+            src.append("        ").append(line).append("\n");
+        }
+        if (signalCount > 0) {
+            src.append("        discovery.addSampler(new Sampler(obj");
+            for (int i = 0; i < signalCount; i++) {
+                src.append(", s").append(i);
+            }
+            src.append("));\n");
+        }
+        src.append("    }\n");
+
+        if (signalCount > 0) {
+            src.append("\n    private static final class Sampler implements SignalSampler {\n");
+            src.append("        private final ").append(typeName).append(" obj;\n");
+            for (int i = 0; i < signalCount; i++) {
+                src.append("        private final Signal s").append(i).append(";\n");
+            }
+            src.append("\n        Sampler(").append(typeName).append(" obj");
+            for (int i = 0; i < signalCount; i++) {
+                src.append(", Signal s").append(i);
+            }
+            src.append(") {\n");
+            src.append("            this.obj = obj;\n");
+            for (int i = 0; i < signalCount; i++) {
+                src.append("            this.s").append(i).append(" = s").append(i).append(";\n");
+            }
+            src.append("        }\n\n");
+            src.append("        @Override\n");
+            src.append("        public void sample(double time) {\n");
+            for (String line : sampleLines) {
+                src.append("            ").append(line).append("\n");
+            }
+            src.append("        }\n");
+            src.append("    }\n");
+        }
+        src.append("}\n");
+
+        String binderQualifiedName = pkgName.isEmpty() ? binderName : pkgName + "." + binderName;
+        try (Writer out = processingEnv.getFiler().createSourceFile(binderQualifiedName, type).openWriter()) {
+            out.write(src.toString());
+        }
+    }
+
+    /**
+     * Could this field hold an object worth walking into. Skips primitives, arrays (never in a
+     * package), and final classes outside the robot packages (ex: String).
+     */
+    private boolean isWalkable(TypeMirror fieldType) {
+        TypeKind kind = fieldType.getKind();
+        if (kind == TypeKind.DECLARED) {
+            Element typeElement = ((DeclaredType) fieldType).asElement();
+            return !(typeElement.getModifiers().contains(Modifier.FINAL)
+                    && !isRobotPackage(getPackage(typeElement).getQualifiedName().toString()));
+        }
+        return kind == TypeKind.TYPEVAR || kind == TypeKind.INTERSECTION;
+    }
+
+    private static AnnotationMirror getSignalAnnotation(Element field) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            Element annType = mirror.getAnnotationType().asElement();
+            if (((TypeElement) annType).getQualifiedName().contentEquals(SIGNAL_ANNOTATION)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String getStringValue(AnnotationMirror ann, String attribute) {
+        Object value = getValue(ann, attribute);
+        return value != null ? String.valueOf(value) : "";
+    }
+
+    private Object getValue(AnnotationMirror ann, String attribute) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils()
+                .getElementValuesWithDefaults(ann);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Expression for the field's PublishPolicy, checking the settings here so a bad one fails the
+     * build instead of robot init.
+     */
+    private String getPublishPolicy(VariableElement field, AnnotationMirror ann) {
+        Object publish = getValue(ann, "publish");
+        String mode = (publish instanceof VariableElement) ? ((VariableElement) publish).getSimpleName().toString()
+                : "EVERY_LOOP";
+        Object decimation = getValue(ann, "decimation");
+        Object deadband = getValue(ann, "deadband");
+
+        switch (mode) {
+            case "DECIMATED":
+                if (!(decimation instanceof Integer) || (Integer) decimation < 1) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "@Signal decimation must be at least 1", field, ann);
+                }
+                return "PublishPolicy.decimated(" + decimation + ")";
+            case "ON_CHANGE":
+                if (!(deadband instanceof Double) || !((Double) deadband >= 0.0)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "@Signal deadband must be zero or positive", field, ann);
+                }
+                return "PublishPolicy.onChange(" + processingEnv.getElementUtils().getConstantExpression(deadband) + ")";
+            case "FILE_ONLY":
+                return "PublishPolicy.FILE_ONLY";
+            default:
+                return "PublishPolicy.EVERY_LOOP";
+        }
+    }
+
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+}
@@ -0,0 +1,80 @@
+package frc.lib.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AsciiDoublesTest {
+
+    private static String format(double val) {
+        byte[] buf = new byte[AsciiDoubles.MAX_CHARS];
+        int len = AsciiDoubles.write(val, buf, 0);
+        return new String(buf, 0, len, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void shortValuesMatchDoubleToString() {
+        double[] vals = { 0.0, -0.0, 1.0, 3.0, -0.25, 0.1, 0.001, 1.5e-4, 12.5, 100.0, 1234567.0,
+                9999999.0, 1e7, 2.0e7, 1e-10, 6.02e23, Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY };
+        for (double val : vals) {
+            assertEquals(Double.toString(val), format(val));
+        }
+    }
+
+    @Test
+    public void smallValuesKeepTheirPrecision() {
+        assertEquals(0.0012345678, Double.parseDouble(format(0.0012345678)), 0.0);
+        assertEquals(0.000999999123, Double.parseDouble(format(0.000999999123)), 0.0);
+        assertEquals(1234.56789012, Double.parseDouble(format(1234.56789012)), 0.0);
+    }
+
+    @Test
+    public void timestampsKeepMicroseconds() {
+        double time_s = 86399.123456;
+        assertEquals(time_s, Double.parseDouble(format(time_s)), 0.0);
+    }
+
+    @Test
+    public void roundsToSignificantDigits() {
+        assertEquals("0.333333333333333", format(1.0 / 3.0));
+        assertEquals("6666666.66666667", format(20000000.0 / 3.0));
+        assertEquals("0.3", format(0.1 + 0.2));
+        // Rounding up into the next power of ten
+        assertEquals("1.0E7", format(9999999.9999999999));
+        assertEquals("0.001", format(0.00099999999999999999));
+    }
+
+    @Test
+    public void extremesParseBack() {
+        double[] vals = { Double.MAX_VALUE, Double.MIN_NORMAL, Double.MIN_VALUE, -Double.MAX_VALUE, 1e-300, 1e300 };
+        for (double val : vals) {
+            String str = format(val);
+            assertTrue(str, str.length() <= AsciiDoubles.MAX_CHARS);
+            assertEquals(str, val, Double.parseDouble(str), Math.abs(val) * 1e-13);
+        }
+    }
+
+    @Test
+    public void randomValuesParseBack() {
+        Random random = new Random(2023);
+        for (int i = 0; i < 100000; i++) {
+            double val = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+            String str = format(val);
+            assertTrue(str, str.length() <= AsciiDoubles.MAX_CHARS);
+            // Within a unit in the 15th significant digit, the scaling can round the last one either way
+            assertEquals(str, val, Double.parseDouble(str), Math.abs(val) * 1e-14);
+        }
+    }
+
+    @Test
+    public void writesAtOffset() {
+        byte[] buf = new byte[4 + AsciiDoubles.MAX_CHARS];
+        int end = AsciiDoubles.write(-2.5, buf, 4);
+        assertEquals("-2.5", new String(buf, 4, end - 4, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,174 @@
+package frc.lib.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes .sigbin logs and reads them back.
+ */
+public class BinarySignalLogTest {
+
+    private static final String[] NAMES = { "Battery Voltage", "Drive Speed", "Arm Angle" };
+    private static final String[] UNITS = { "V", "m/s", "deg" };
+    private static final int ROWS = 500;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    // Signal i is sampled every (i + 1) rows and only changes every few samples, like real signals
+    private static double valueAt(int row, int col) {
+        return col == 0 ? 12.5 - (row / 50) * 0.01 : Math.sin(row / 7) * (col + 1) * 1e-3;
+    }
+
+    private static boolean sampledAt(int row, int col) {
+        return row % (col + 1) == 0;
+    }
+
+    private Path writeLog(String fileName, boolean compress) throws IOException {
+        Path file = tmp.getRoot().toPath().resolve(fileName);
+        BinarySignalLogWriter writer = new BinarySignalLogWriter(file, compress);
+        writer.writeHeader(NAMES, UNITS);
+        double[] values = new double[NAMES.length];
+        long[] present = new long[1];
+        for (int row = 0; row < ROWS; row++) {
+            present[0] = 0;
+            for (int col = 0; col < NAMES.length; col++) {
+                if (sampledAt(row, col)) {
+                    values[col] = valueAt(row, col);
+                    present[0] |= 1L << col;
+                } else {
+                    // Garbage in unsampled columns mustn't end up in the file
+                    values[col] = Double.NaN;
+                }
+            }
+            writer.writeRow(row * 0.02, values, present);
+        }
+        writer.close();
+        return file;
+    }
+
+    private static void checkLog(Path file) throws IOException {
+        try (BinarySignalLogReader reader = new BinarySignalLogReader(file)) {
+            assertArrayEquals(NAMES, reader.getNames());
+            assertArrayEquals(UNITS, reader.getUnits());
+            for (int row = 0; row < ROWS; row++) {
+                assertTrue("row " + row, reader.next());
+                assertEquals(row * 0.02, reader.getTime(), 0.0);
+                for (int col = 0; col < NAMES.length; col++) {
+                    assertEquals(sampledAt(row, col), SignalLogWriter.isPresent(reader.getPresent(), col));
+                    if (sampledAt(row, col)) {
+                        assertEquals(valueAt(row, col), reader.getValues()[col], 0.0);
+                    }
+                }
+            }
+            assertFalse(reader.next());
+            assertFalse(reader.wasTruncated());
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        checkLog(writeLog("log" + BinarySignalLogWriter.FILE_EXTENSION, false));
+    }
+
+    @Test
+    public void gzippedRoundTrip() throws IOException {
+        checkLog(writeLog("log" + BinarySignalLogWriter.FILE_EXTENSION + SignalLogOutput.GZIP_EXTENSION, true));
+    }
+
+    @Test
+    public void cutOffLogReadsUpToLastFullFrame() throws IOException {
+        Path file = writeLog("log" + BinarySignalLogWriter.FILE_EXTENSION, false);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (BinarySignalLogReader reader = new BinarySignalLogReader(file)) {
+            int rows = 0;
+            while (reader.next()) {
+                assertEquals(rows * 0.02, reader.getTime(), 0.0);
+                rows++;
+            }
+            assertEquals(ROWS - 1, rows);
+            assertTrue(reader.wasTruncated());
+        }
+    }
+
+    @Test
+    public void unclosedGzippedLogReadsUpToLastSync() throws IOException {
+        // Synced as it goes but never closed, then padded with zeros like a file system can
+        // leave the end of a file after a power cut
+        Path file = tmp.getRoot().toPath().resolve("log" + BinarySignalLogWriter.FILE_EXTENSION + SignalLogOutput.GZIP_EXTENSION);
+        BinarySignalLogWriter writer = new BinarySignalLogWriter(file, true);
+        writer.writeHeader(NAMES, UNITS);
+        double[] values = new double[NAMES.length];
+        long[] present = { (1L << NAMES.length) - 1 };
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < NAMES.length; col++) {
+                values[col] = valueAt(row, col);
+            }
+            writer.writeRow(row * 0.02, values, present);
+            if (row % 100 == 99) {
+                writer.sync();
+            }
+        }
+        Files.write(file, new byte[4096], StandardOpenOption.APPEND);
+
+        try (BinarySignalLogReader reader = new BinarySignalLogReader(file)) {
+            assertArrayEquals(NAMES, reader.getNames());
+            int rows = 0;
+            while (reader.next()) {
+                assertEquals(rows * 0.02, reader.getTime(), 0.0);
+                assertEquals(valueAt(rows, 1), reader.getValues()[1], 0.0);
+                rows++;
+            }
+            assertEquals(ROWS, rows);
+            assertTrue(reader.wasTruncated());
+        }
+    }
+
+    @Test
+    public void manySignals() throws IOException {
+        // More than one long of present bits, and a mask that doesn't fill its last byte
+        int numSignals = 77;
+        String[] names = new String[numSignals];
+        String[] units = new String[numSignals];
+        for (int i = 0; i < numSignals; i++) {
+            names[i] = "Signal " + i;
+            units[i] = "";
+        }
+        Path file = tmp.getRoot().toPath().resolve("wide" + BinarySignalLogWriter.FILE_EXTENSION);
+        Random random = new Random(5);
+        double[][] written = new double[20][numSignals];
+        BinarySignalLogWriter writer = new BinarySignalLogWriter(file, false);
+        writer.writeHeader(names, units);
+        long[] present = { -1L, (1L << (numSignals - 64)) - 1 };
+        for (int row = 0; row < written.length; row++) {
+            for (int col = 0; col < numSignals; col++) {
+                written[row][col] = random.nextBoolean() && row > 0 ? written[row - 1][col] : random.nextGaussian();
+            }
+            writer.writeRow(row, written[row].clone(), present);
+        }
+        writer.close();
+
+        try (BinarySignalLogReader reader = new BinarySignalLogReader(file)) {
+            for (int row = 0; row < written.length; row++) {
+                assertTrue(reader.next());
+                assertArrayEquals(written[row], reader.getValues(), 0.0);
+            }
+            assertFalse(reader.next());
+        }
+    }
+}
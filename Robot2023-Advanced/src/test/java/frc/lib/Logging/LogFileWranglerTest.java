@@ -0,0 +1,97 @@
+package frc.lib.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Fills a log directory with logs of known sizes and ages, and checks which ones the retention
+ * policy keeps.
+ */
+public class LogFileWranglerTest {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private LogFileWrangler wrangler;
+    private Path oldLogFilePath;
+    private long now;
+
+    @Before
+    public void pointAtTempDir() {
+        wrangler = LogFileWrangler.getInstance();
+        oldLogFilePath = wrangler.logFilePath;
+        wrangler.logFilePath = tmp.getRoot().toPath();
+        // Whole seconds, some file systems don't keep anything finer
+        now = System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    @After
+    public void restore() {
+        wrangler.logFilePath = oldLogFilePath;
+        wrangler.setRetentionPolicy(LogFileWrangler.DEFAULT_MAX_TOTAL_BYTES, LogFileWrangler.DEFAULT_MAX_LOGS);
+    }
+
+    // A log file of the given size, last written hoursAgo hours ago
+    private File writeLog(String name, int bytes, int hoursAgo) throws IOException {
+        File file = tmp.getRoot().toPath().resolve(name).toFile();
+        Files.write(file.toPath(), new byte[bytes]);
+        assertTrue(file.setLastModified(now - hoursAgo * HOUR_MS));
+        return file;
+    }
+
+    @Test
+    public void everythingOlderThanALogThatDoesntFitIsDeleted() throws IOException {
+        File newest = writeLog("log_3.sigbin", 100, 1);
+        File tooBig = writeLog("log_2.csv", 500, 2);
+        // Would still fit next to the newest one, but it's older than one that didn't
+        File small = writeLog("log_1.csv.gz", 100, 3);
+        File notALog = writeLog("notes.txt", 100, 4);
+        wrangler.setRetentionPolicy(300, 0);
+
+        assertEquals(2, wrangler.deleteOldLogs());
+        assertTrue(newest.exists());
+        assertFalse(tooBig.exists());
+        assertFalse(small.exists());
+        assertTrue(notALog.exists());
+    }
+
+    @Test
+    public void segmentsOfALogGoTogether() throws IOException {
+        File newest = writeLog("log_3.sigbin", 100, 1);
+        File middle = writeLog("log_2.sigbin", 100, 3);
+        File middlePart2 = writeLog("log_2_part2.sigbin", 100, 2);
+        File oldest = writeLog("log_1.sigbin", 10, 4);
+        wrangler.setRetentionPolicy(0, 2);
+
+        assertEquals(1, wrangler.deleteOldLogs());
+        assertTrue(newest.exists());
+        assertTrue(middle.exists());
+        assertTrue(middlePart2.exists());
+        assertFalse(oldest.exists());
+    }
+
+    @Test
+    public void newestLogIsKeptEvenIfTooBig() throws IOException {
+        File newest = writeLog("log_2.csv", 1000, 1);
+        File older = writeLog("log_1.csv", 10, 2);
+        wrangler.setRetentionPolicy(100, 0);
+
+        assertEquals(1, wrangler.deleteOldLogs());
+        assertTrue(newest.exists());
+        assertFalse(older.exists());
+    }
+}
@@ -0,0 +1,117 @@
+package frc.lib.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SampleRingTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityHasToBeAPowerOfTwo() {
+        new SampleRing(12);
+    }
+
+    @Test
+    public void drainsInOrder() {
+        SampleRing ring = new SampleRing(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.offer(i, i * 0.02, i * 10.0));
+        }
+        assertEquals(5, ring.size());
+
+        List<double[]> drained = new ArrayList<>();
+        assertEquals(5, ring.drain((id, time_s, value) -> drained.add(new double[] { id, time_s, value }), 100));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, drained.get(i)[0], 0.0);
+            assertEquals(i * 0.02, drained.get(i)[1], 0.0);
+            assertEquals(i * 10.0, drained.get(i)[2], 0.0);
+        }
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void drainStopsAtMaxSamples() {
+        SampleRing ring = new SampleRing(8);
+        for (int i = 0; i < 6; i++) {
+            ring.offer(i, 0, 0);
+        }
+        List<Integer> ids = new ArrayList<>();
+        assertEquals(4, ring.drain((id, time_s, value) -> ids.add(id), 4));
+        assertEquals(2, ring.drain((id, time_s, value) -> ids.add(id), 4));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), ids);
+    }
+
+    @Test
+    public void dropsWhenFull() {
+        SampleRing ring = new SampleRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i, 0, 0));
+        }
+        assertFalse(ring.offer(4, 0, 0));
+        assertEquals(1, ring.getDroppedCount());
+
+        // Room again once the logger catches up, and the wraparound keeps the order
+        ring.drain((id, time_s, value) -> {
+        }, 2);
+        assertTrue(ring.offer(5, 0, 0));
+        assertTrue(ring.offer(6, 0, 0));
+        List<Integer> ids = new ArrayList<>();
+        ring.drain((id, time_s, value) -> ids.add(id), 100);
+        assertEquals(List.of(2, 3, 5, 6), ids);
+    }
+
+    @Test
+    public void positionsCountStoredAndDrained() {
+        SampleRing ring = new SampleRing(4);
+        for (int i = 0; i < 6; i++) {
+            ring.offer(i, 0, 0);
+        }
+        // Dropped samples don't move the write position
+        assertEquals(4, ring.getWritePosition());
+        ring.drain((id, time_s, value) -> {
+        }, 3);
+        assertEquals(3, ring.getReadPosition());
+        ring.offer(6, 0, 0);
+        assertEquals(5, ring.getWritePosition());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 50000;
+        SampleRing ring = new SampleRing(1024);
+        long[] nextExpected = new long[producers];
+        int[] received = new int[1];
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(id, i, i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        // Each producer's samples have to come out in the order it put them in
+        while (received[0] < producers * perProducer) {
+            ring.drain((id, time_s, value) -> {
+                assertEquals(nextExpected[id], (long) time_s);
+                nextExpected[id]++;
+                received[0]++;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, ring.size());
+    }
+}